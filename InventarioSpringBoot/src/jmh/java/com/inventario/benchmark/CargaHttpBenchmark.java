@@ -0,0 +1,111 @@
+package com.inventario.benchmark;
+
+import com.inventario.service.AgregadosInventario;
+import com.inventario.service.AlertasStock;
+import com.inventario.service.CatalogoColumnar;
+import com.inventario.service.IndiceBusqueda;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Carga HTTP sobre el listado y el dashboard con Tomcat en hilos de
+ * plataforma o en hilos virtuales (este último requiere Java 21+).
+ *
+ * 256 clientes concurrentes: más que los 200 hilos de Tomcat por defecto,
+ * que es donde los dos modos se separan. El pool de HikariCP es el mismo
+ * en ambos. H2 en memoria casi no bloquea en JDBC, así que la diferencia
+ * contra MySQL por red será mayor que la medida aquí.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(256)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CargaHttpBenchmark {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    @Param({"plataforma", "virtuales"})
+    public String hilos;
+
+    @Param({"100000"})
+    public int filas;
+
+    private ConfigurableApplicationContext ctx;
+    private HttpClient cliente;
+    private String base;
+    private String autorizacion;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws Exception {
+        boolean virtuales = "virtuales".equals(hilos);
+        if (virtuales && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("El modo con hilos virtuales requiere Java 21+");
+        }
+        ctx = CatalogoSintetico.iniciarServidor(filas,
+                "spring.threads.virtual.enabled=" + virtuales,
+                "inventario.hilos-virtuales.max-concurrentes=100");
+        // Lo que se construye en memoria al arrancar vio los datos de ejemplo, no el catálogo sintético
+        ctx.getBeanProvider(AgregadosInventario.class).ifAvailable(AgregadosInventario::reconstruir);
+        ctx.getBean(AlertasStock.class).reconstruir();
+        ctx.getBeanProvider(CatalogoColumnar.class).ifAvailable(CatalogoColumnar::construir);
+        ctx.getBeanProvider(IndiceBusqueda.class).ifAvailable(IndiceBusqueda::construir);
+        base = "http://localhost:" + ctx.getEnvironment().getProperty("local.server.port");
+        cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        HttpResponse<String> respuesta = cliente.send(HttpRequest.newBuilder(URI.create(base + "/api/auth/token"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"admin123\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher token = TOKEN.matcher(respuesta.body());
+        if (!token.find()) {
+            throw new IllegalStateException("No se obtuvo token: " + respuesta.statusCode() + " " + respuesta.body());
+        }
+        autorizacion = "Bearer " + token.group(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        ctx.close();
+    }
+
+    // Página al azar: mezcla aciertos de la caché de listados con consultas a la BD
+    @Benchmark
+    public int listado() throws Exception {
+        int pagina = ThreadLocalRandom.current().nextInt(filas / 20);
+        return get("/productos?ordenar=precio_desc&page=" + pagina);
+    }
+
+    @Benchmark
+    public int dashboard() throws Exception {
+        return get("/dashboard");
+    }
+
+    private int get(String ruta) throws Exception {
+        HttpResponse<Void> respuesta = cliente.send(HttpRequest.newBuilder(URI.create(base + ruta))
+                        .header("Authorization", autorizacion)
+                        .GET()
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException(ruta + " respondió " + respuesta.statusCode());
+        }
+        return respuesta.statusCode();
+    }
+}
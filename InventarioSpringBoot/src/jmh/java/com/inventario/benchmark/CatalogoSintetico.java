@@ -0,0 +1,106 @@
+package com.inventario.benchmark;
+
+import com.inventario.InventarioSpringBootApplication;
+import com.inventario.model.Producto;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Arranca la aplicación (sin servidor web, o con Tomcat para las pruebas
+ * HTTP) sobre una base H2 en memoria y la llena con un catálogo sintético.
+ * La semilla es fija, así que dos corridas con el mismo número de filas
+ * miden exactamente los mismos datos.
+ */
+public final class CatalogoSintetico {
+
+    static final String[] CATEGORIAS = {"Electronicos", "Accesorios", "Muebles", "Ropa"};
+    private static final String[] PALABRAS = {"Laptop", "Mouse", "Teclado", "Monitor", "Silla",
+            "Escritorio", "Camisa", "Pantalon", "Auriculares", "Tablet", "Impresora", "Lampara"};
+    private static final long SEMILLA = 42L;
+    private static final int LOTE = 10_000;
+
+    private CatalogoSintetico() {}
+
+    public static ConfigurableApplicationContext iniciar(int filas, String... propiedades) {
+        return arrancar(WebApplicationType.NONE, filas, propiedades);
+    }
+
+    // Igual, pero con Tomcat en un puerto libre (local.server.port) para pruebas de carga HTTP
+    public static ConfigurableApplicationContext iniciarServidor(int filas, String... propiedades) {
+        List<String> props = new ArrayList<>(Arrays.asList(propiedades));
+        props.add("server.port=0");
+        // Como en producción: sin esto cada request vuelve a parsear la plantilla
+        props.add("spring.thymeleaf.cache=true");
+        return arrancar(WebApplicationType.SERVLET, filas, props.toArray(new String[0]));
+    }
+
+    private static ConfigurableApplicationContext arrancar(WebApplicationType tipo, int filas, String... propiedades) {
+        List<String> props = new ArrayList<>(Arrays.asList(
+                "spring.datasource.url=jdbc:h2:mem:bench" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "logging.level.com.inventario=WARN",
+                "logging.level.org.springframework.web=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "inventario.estadisticas.reconciliacion-ms=3600000"));
+        props.addAll(Arrays.asList(propiedades));
+
+        // Como argumentos de línea de comandos: .properties() son solo valores por defecto
+        // y application-h2.yml los pisaría (URL de la base, puerto, nivel de log)
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(InventarioSpringBootApplication.class)
+                .profiles("h2")
+                .web(tipo)
+                .run(props.stream().map(p -> "--" + p).toArray(String[]::new));
+
+        poblar(ctx.getBean(JdbcTemplate.class), filas);
+        return ctx;
+    }
+
+    // Reemplaza los datos de ejemplo por `filas` productos generados
+    static void poblar(JdbcTemplate jdbc, int filas) {
+        jdbc.update("DELETE FROM productos");
+        Random random = new Random(SEMILLA);
+        List<Object[]> lote = new ArrayList<>(LOTE);
+        for (int i = 1; i <= filas; i++) {
+            Producto p = generar(random, i);
+            lote.add(new Object[] {
+                    p.getCodigo(), p.getNombre(), p.getCategoria(), p.getPrecio(), p.getStock(), p.getActivo()
+            });
+            if (lote.size() == LOTE || i == filas) {
+                jdbc.batchUpdate("INSERT INTO productos (codigo, nombre, categoria, precio, stock, activo) " +
+                                 "VALUES (?, ?, ?, ?, ?, ?)", lote);
+                lote.clear();
+            }
+        }
+    }
+
+    // Los mismos productos que poblar(), solo en memoria (ids 1..filas)
+    static List<Producto> productos(int filas) {
+        Random random = new Random(SEMILLA);
+        List<Producto> productos = new ArrayList<>(filas);
+        for (int i = 1; i <= filas; i++) {
+            productos.add(generar(random, i));
+        }
+        return productos;
+    }
+
+    private static Producto generar(Random random, int i) {
+        String palabra = PALABRAS[random.nextInt(PALABRAS.length)];
+        return new Producto(i,
+                String.format("PROD-%07d", i),
+                palabra + " sintetico " + i,
+                CATEGORIAS[random.nextInt(CATEGORIAS.length)],
+                (double) (1_000 + random.nextInt(5_000_000)),
+                random.nextInt(500),
+                random.nextInt(10) != 0);
+    }
+}
@@ -0,0 +1,44 @@
+package com.inventario.benchmark;
+
+import com.inventario.model.Producto;
+import com.inventario.service.AcumuladorEstadisticas;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo del modo streams sobre una lista ya cargada (sin findAll ni
+ * Spring), secuencial o en paralelo. Con "paralelo" el tiempo debería
+ * bajar con la cantidad de núcleos (-Djava.util.concurrent.ForkJoinPool.common.parallelism=N
+ * para comparar).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class EstadisticasEnMemoriaBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int filas;
+
+    @Param({"secuencial", "paralelo"})
+    public String ejecucion;
+
+    private List<Producto> productos;
+    private int umbral;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        productos = CatalogoSintetico.productos(filas);
+        umbral = "paralelo".equals(ejecucion) ? 0 : Integer.MAX_VALUE;
+    }
+
+    @Benchmark
+    public Map<String, Object> calcular() {
+        return AcumuladorEstadisticas.calcular(productos, umbral);
+    }
+}
@@ -0,0 +1,54 @@
+package com.inventario.benchmark;
+
+import com.inventario.service.AgregadosInventario;
+import com.inventario.service.AlertasStock;
+import com.inventario.service.CatalogoColumnar;
+import com.inventario.service.EstadisticasService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EstadisticasService.obtenerEstadisticas en cada modo de cálculo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class EstadisticasServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int filas;
+
+    @Param({"incremental", "sql", "streams", "columnar"})
+    public String modo;
+
+    private ConfigurableApplicationContext ctx;
+    private EstadisticasService service;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        ctx = CatalogoSintetico.iniciar(filas, "inventario.estadisticas.modo=" + modo,
+                "inventario.catalogo.columnar.habilitado=" + "columnar".equals(modo));
+        // Agregados, alertas (stock bajo y crítico del dashboard) y catálogo columnar se construyeron
+        // al arrancar, antes de cargar el catálogo sintético
+        ctx.getBeanProvider(AgregadosInventario.class).ifAvailable(AgregadosInventario::reconstruir);
+        ctx.getBean(AlertasStock.class).reconstruir();
+        ctx.getBeanProvider(CatalogoColumnar.class).ifAvailable(CatalogoColumnar::construir);
+        service = ctx.getBean(EstadisticasService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> obtenerEstadisticas() {
+        return service.obtenerEstadisticas();
+    }
+}
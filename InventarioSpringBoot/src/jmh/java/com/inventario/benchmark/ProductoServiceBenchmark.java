@@ -0,0 +1,56 @@
+package com.inventario.benchmark;
+
+import com.inventario.model.Producto;
+import com.inventario.service.ProductoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductoService.buscarYFiltrar para cada modo de "ordenar", con y sin texto de búsqueda.
+ * "ninguno" representa el parámetro ausente. Sin caché: cada iteración pide la misma
+ * página, y con la caché de listados se mediría un acierto en lugar de la consulta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ProductoServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int filas;
+
+    @Param({"ninguno", "nombre", "precio_asc", "precio_desc", "stock_asc", "stock_desc"})
+    public String ordenar;
+
+    @Param({"ninguno", "teclado sintetico 1"})
+    public String buscar;
+
+    private ConfigurableApplicationContext ctx;
+    private ProductoService service;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        ctx = CatalogoSintetico.iniciar(filas, "spring.cache.type=none");
+        service = ctx.getBean(ProductoService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Page<Producto> buscarYFiltrar() {
+        return service.buscarYFiltrar(valor(buscar), null, valor(ordenar),
+                0, ProductoService.TAMANO_PAGINA_DEFECTO);
+    }
+
+    private static String valor(String param) {
+        return "ninguno".equals(param) ? null : param;
+    }
+}
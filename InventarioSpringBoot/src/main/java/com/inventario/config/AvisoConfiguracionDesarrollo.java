@@ -0,0 +1,98 @@
+package com.inventario.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Avisa cuando hay configuración de desarrollo activa (SQL en el log,
+ * plantillas sin caché, DEBUG, DevTools, consola H2).
+ *
+ * Al arrancar: WARN con el perfil prod, INFO en los demás. Después, cada
+ * minuto, WARN si además se superó inventario.avisos.requests-por-minuto,
+ * porque con carga esa configuración cuesta más que la propia consulta.
+ */
+@Component
+@Lazy(false)
+public class AvisoConfiguracionDesarrollo {
+
+    private static final Logger log = LoggerFactory.getLogger(AvisoConfiguracionDesarrollo.class);
+
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${inventario.avisos.requests-por-minuto:600}")
+    private long umbralRequests;
+
+    private List<String> ajustes = new ArrayList<>();
+    private long requestsAnteriores;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void revisar() {
+        ajustes = ajustesDesarrollo();
+        if (ajustes.isEmpty()) {
+            return;
+        }
+        if (env.acceptsProfiles(Profiles.of("prod"))) {
+            log.warn("Configuración de desarrollo activa con el perfil prod: {}", ajustes);
+        } else {
+            log.info("Configuración de desarrollo activa (usar --spring.profiles.active=prod en producción): {}", ajustes);
+        }
+    }
+
+    @Scheduled(fixedRate = 60000, initialDelay = 60000)
+    public void revisarCarga() {
+        long requests = 0;
+        for (Timer timer : registry.find("http.server.requests").timers()) {
+            requests += timer.count();
+        }
+        long enElMinuto = requests - requestsAnteriores;
+        requestsAnteriores = requests;
+        if (!ajustes.isEmpty() && enElMinuto > umbralRequests) {
+            log.warn("{} requests en el último minuto con configuración de desarrollo activa: {}", enElMinuto, ajustes);
+        }
+    }
+
+    private List<String> ajustesDesarrollo() {
+        List<String> activos = new ArrayList<>();
+        if (env.getProperty("spring.jpa.show-sql", Boolean.class, false)) {
+            activos.add("spring.jpa.show-sql");
+        }
+        if (env.getProperty("spring.jpa.properties.hibernate.format_sql", Boolean.class, false)) {
+            activos.add("hibernate.format_sql");
+        }
+        if (!env.getProperty("spring.thymeleaf.cache", Boolean.class, true)) {
+            activos.add("spring.thymeleaf.cache=false");
+        }
+        if (env.getProperty("spring.h2.console.enabled", Boolean.class, false)) {
+            activos.add("spring.h2.console.enabled");
+        }
+        for (String logger : List.of("org.hibernate.SQL", "org.springframework.web", "com.inventario")) {
+            if (LoggerFactory.getLogger(logger).isDebugEnabled()) {
+                activos.add("logging.level." + logger + "=DEBUG");
+            }
+        }
+        if (ClassUtils.isPresent("org.springframework.boot.devtools.restart.Restarter", getClass().getClassLoader())
+                && env.getProperty("spring.devtools.restart.enabled", Boolean.class, true)) {
+            activos.add("spring-boot-devtools");
+        }
+        return activos;
+    }
+}
@@ -0,0 +1,30 @@
+package com.inventario.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual.
+ *
+ * SentenciasPorRequestFilter lo reinicia al empezar cada request y registra
+ * el total al terminar, así un N+1 o una carga completa de la tabla se ve
+ * como un salto en inventario.hibernate.sentencias. Un contador por hilo,
+ * sin estadísticas globales de Hibernate.
+ */
+public class ContadorSentencias implements StatementInspector {
+
+    private static final ThreadLocal<int[]> CONTADOR = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        CONTADOR.get()[0]++;
+        return sql;
+    }
+
+    static void reiniciar() {
+        CONTADOR.get()[0] = 0;
+    }
+
+    static int sentencias() {
+        return CONTADOR.get()[0];
+    }
+}
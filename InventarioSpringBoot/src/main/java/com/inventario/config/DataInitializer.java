@@ -1,36 +1,71 @@
 package com.inventario.config;
 
-import com.inventario.model.Producto;
+import com.inventario.model.Usuario;
 import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Component
 public class DataInitializer implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+
+    private static final String INSERT_PRODUCTO =
+            "INSERT INTO productos (codigo, nombre, categoria, precio, stock, activo, version, actualizado_en, secuencia) " +
+            "VALUES (?, ?, ?, ?, ?, TRUE, 0, ?, 0)";
+
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Override
     public void run(String... args) throws Exception {
-        // Solo inicializar si no hay productos
+        // Usuarios de prueba, solo si la tabla está vacía
+        if (usuarioRepository.count() == 0) {
+            usuarioRepository.save(new Usuario("admin", passwordEncoder.encode("admin123"), "ADMIN"));
+            usuarioRepository.save(new Usuario("user", passwordEncoder.encode("user123"), "USER"));
+            log.info("Usuarios de prueba creados (admin, user)");
+        }
+
+        // Solo inicializar si no hay productos: un único INSERT en lote (la secuencia de cambios
+        // la asigna SecuenciaCambios al arrancar)
         if (productoRepository.count() == 0) {
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
             // Productos de ejemplo con precios en COP
-            productoRepository.save(new Producto(null, "LAPTOP-001", "Laptop Dell Inspiron 15", "Electronicos", 3500000.0, 15, true));
-            productoRepository.save(new Producto(null, "MOUSE-001", "Mouse Logitech MX Master", "Accesorios", 320000.0, 45, true));
-            productoRepository.save(new Producto(null, "TECLADO-001", "Teclado Mecánico RGB", "Accesorios", 450000.0, 30, true));
-            productoRepository.save(new Producto(null, "MONITOR-001", "Monitor LG 27 pulgadas", "Electronicos", 1200000.0, 8, true));
-            productoRepository.save(new Producto(null, "SILLA-001", "Silla Ergonómica Oficina", "Muebles", 850000.0, 12, true));
-            productoRepository.save(new Producto(null, "ESCRITORIO-001", "Escritorio Ejecutivo", "Muebles", 1500000.0, 5, true));
-            productoRepository.save(new Producto(null, "CAMISA-001", "Camisa Formal Blanca", "Ropa", 120000.0, 50, true));
-            productoRepository.save(new Producto(null, "PANTALON-001", "Pantalón de Vestir Negro", "Ropa", 180000.0, 35, true));
-            productoRepository.save(new Producto(null, "AURICULAR-001", "Auriculares Bluetooth", "Accesorios", 280000.0, 3, true));
-            productoRepository.save(new Producto(null, "TABLET-001", "Tablet Samsung Galaxy", "Electronicos", 1800000.0, 2, true));
-            productoRepository.save(new Producto(null, "IMPRESORA-001", "Impresora HP LaserJet", "Electronicos", 950000.0, 20, true));
-            productoRepository.save(new Producto(null, "LAMPARA-001", "Lámpara LED Escritorio", "Muebles", 85000.0, 25, true));
-            
-            System.out.println("✅ Datos de ejemplo inicializados correctamente");
+            List<Object[]> productos = List.of(
+                    new Object[] {"LAPTOP-001", "Laptop Dell Inspiron 15", "Electronicos", 3500000.0, 15, ahora},
+                    new Object[] {"MOUSE-001", "Mouse Logitech MX Master", "Accesorios", 320000.0, 45, ahora},
+                    new Object[] {"TECLADO-001", "Teclado Mecánico RGB", "Accesorios", 450000.0, 30, ahora},
+                    new Object[] {"MONITOR-001", "Monitor LG 27 pulgadas", "Electronicos", 1200000.0, 8, ahora},
+                    new Object[] {"SILLA-001", "Silla Ergonómica Oficina", "Muebles", 850000.0, 12, ahora},
+                    new Object[] {"ESCRITORIO-001", "Escritorio Ejecutivo", "Muebles", 1500000.0, 5, ahora},
+                    new Object[] {"CAMISA-001", "Camisa Formal Blanca", "Ropa", 120000.0, 50, ahora},
+                    new Object[] {"PANTALON-001", "Pantalón de Vestir Negro", "Ropa", 180000.0, 35, ahora},
+                    new Object[] {"AURICULAR-001", "Auriculares Bluetooth", "Accesorios", 280000.0, 3, ahora},
+                    new Object[] {"TABLET-001", "Tablet Samsung Galaxy", "Electronicos", 1800000.0, 2, ahora},
+                    new Object[] {"IMPRESORA-001", "Impresora HP LaserJet", "Electronicos", 950000.0, 20, ahora},
+                    new Object[] {"LAMPARA-001", "Lámpara LED Escritorio", "Muebles", 85000.0, 25, ahora});
+            jdbcTemplate.batchUpdate(INSERT_PRODUCTO, productos);
+
+            log.info("Datos de ejemplo inicializados: {} productos", productos.size());
         }
     }
 }
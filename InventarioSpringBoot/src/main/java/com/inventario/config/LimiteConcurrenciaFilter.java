@@ -0,0 +1,102 @@
+package com.inventario.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tope de requests en curso para el modo con hilos virtuales
+ * (spring.threads.virtual.enabled=true, perfil "virtual").
+ *
+ * Con hilos de plataforma el pool de Tomcat (200 hilos) limita cuántas
+ * requests compiten por las conexiones de HikariCP; con hilos virtuales
+ * ese límite desaparece y miles de requests esperarían una conexión hasta
+ * el connection-timeout. Este filtro deja pasar
+ * inventario.hilos-virtuales.max-concurrentes a la vez, espera como mucho
+ * espera-ms por un lugar y si no responde 503 con Retry-After.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class LimiteConcurrenciaFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(LimiteConcurrenciaFilter.class);
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${inventario.hilos-virtuales.max-concurrentes:100}")
+    private int maxConcurrentes;
+
+    @Value("${inventario.hilos-virtuales.espera-ms:1000}")
+    private long esperaMs;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int conexiones;
+
+    private Semaphore lugares;
+    private Counter rechazos;
+
+    @PostConstruct
+    public void iniciar() {
+        lugares = new Semaphore(maxConcurrentes, true);
+        rechazos = registry.counter("inventario.concurrencia.rechazos");
+        Gauge.builder("inventario.concurrencia.activas", lugares, s -> maxConcurrentes - s.availablePermits())
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void informar() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled=true requiere Java 21+ (versión actual: {}); " +
+                     "se siguen usando hilos de plataforma", Runtime.version().feature());
+        } else {
+            log.info("Requests en hilos virtuales: máximo {} en curso para {} conexiones a la base de datos",
+                     maxConcurrentes, conexiones);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        boolean adquirido;
+        try {
+            adquirido = lugares.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            adquirido = false;
+        }
+        if (!adquirido) {
+            rechazos.increment();
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Servidor ocupado, reintentar");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            lugares.release();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.inventario.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia y filas devueltas de cada método de la ruta caliente.
+ *
+ * Registra el timer inventario.metodo (capa, clase, metodo, excepcion) y,
+ * cuando el resultado es una colección, página u Optional, el resumen
+ * inventario.filas con la cantidad de filas. Los percentiles se configuran
+ * en management.metrics.distribution.
+ */
+@Aspect
+@Component
+public class MetricasAspect {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Around("within(com.inventario.controller.ProductoController) || within(com.inventario.controller.DashboardController)")
+    public Object medirControlador(ProceedingJoinPoint punto) throws Throwable {
+        return medir(punto, "controlador", punto.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("within(com.inventario.service.ProductoService) || within(com.inventario.service.EstadisticasService)")
+    public Object medirServicio(ProceedingJoinPoint punto) throws Throwable {
+        return medir(punto, "servicio", punto.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    // Incluye los métodos heredados de JpaRepository (findAll, findById, save...)
+    @Around("this(com.inventario.repository.ProductoRepository) && !execution(* java.lang.Object.*(..))")
+    public Object medirRepositorio(ProceedingJoinPoint punto) throws Throwable {
+        return medir(punto, "repositorio", "ProductoRepository");
+    }
+
+    private Object medir(ProceedingJoinPoint punto, String capa, String clase) throws Throwable {
+        String metodo = punto.getSignature().getName();
+        String excepcion = "ninguna";
+        long inicio = System.nanoTime();
+        try {
+            Object resultado = punto.proceed();
+            long filas = filas(resultado);
+            if (filas >= 0) {
+                DistributionSummary.builder("inventario.filas")
+                        .tags("capa", capa, "clase", clase, "metodo", metodo)
+                        .register(registry)
+                        .record(filas);
+            }
+            return resultado;
+        } catch (Throwable t) {
+            excepcion = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            Timer.builder("inventario.metodo")
+                    .tags("capa", capa, "clase", clase, "metodo", metodo, "excepcion", excepcion)
+                    .register(registry)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // -1 si el resultado no es una lista de filas
+    private static long filas(Object resultado) {
+        if (resultado instanceof Collection) {
+            return ((Collection<?>) resultado).size();
+        }
+        if (resultado instanceof Slice) {
+            return ((Slice<?>) resultado).getNumberOfElements();
+        }
+        if (resultado instanceof Optional) {
+            return ((Optional<?>) resultado).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
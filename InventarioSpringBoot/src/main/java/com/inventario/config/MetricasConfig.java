@@ -0,0 +1,16 @@
+package com.inventario.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricasConfig {
+
+    // Contador de sentencias SQL por request (ver SentenciasPorRequestFilter)
+    @Bean
+    public HibernatePropertiesCustomizer contadorSentencias() {
+        return propiedades -> propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorSentencias());
+    }
+}
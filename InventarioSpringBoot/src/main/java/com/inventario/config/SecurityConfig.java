@@ -1,60 +1,66 @@
 package com.inventario.config;
 
+import com.inventario.service.TokenService;
+import com.inventario.service.UsuarioDetallesService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import java.util.UUID;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    // Costo de BCrypt (2^costo rondas). Los hashes con otro costo se regeneran en el siguiente login
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${inventario.seguridad.bcrypt-costo:10}") int costo) {
+        return new BCryptPasswordEncoder(costo);
     }
 
+    // Para POST /api/auth/token (los usuarios salen de UsuarioDetallesService)
     @Bean
-    public UserDetailsService userDetailsService(PasswordEncoder passwordEncoder) {
-        // Usuario ADMIN
-        UserDetails admin = User.builder()
-                .username("admin")
-                .password(passwordEncoder.encode("admin123"))
-                .roles("ADMIN")
-                .build();
-
-        // Usuario USER
-        UserDetails user = User.builder()
-                .username("user")
-                .password(passwordEncoder.encode("user123"))
-                .roles("USER")
-                .build();
-
-        return new InMemoryUserDetailsManager(admin, user);
+    public AuthenticationManager authenticationManager(AuthenticationConfiguration configuracion) throws Exception {
+        return configuracion.getAuthenticationManager();
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService,
+                                                   UsuarioDetallesService usuarios,
+                                                   @Value("${inventario.seguridad.token.secreto:}") String secreto,
+                                                   @Value("${inventario.seguridad.recordarme-dias:14}") int recordarmeDias) throws Exception {
         http
+            // Token Bearer: sin sesión ni BCrypt en cada llamada a la API
+            .addFilterBefore(new TokenAuthenticationFilter(tokenService, usuarios), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
                 // Recursos públicos
                 .requestMatchers("/css/**", "/js/**", "/images/**", "/h2-console/**").permitAll()
-                // Login público
-                .requestMatchers("/login").permitAll()
+                // Login público (formulario y emisión de tokens)
+                .requestMatchers("/login", "/api/auth/token").permitAll()
                 // Dashboard requiere autenticación
                 .requestMatchers("/", "/dashboard").authenticated()
                 // Productos: USER puede ver, ADMIN puede modificar
-                .requestMatchers("/productos/nuevo", "/productos/*/editar", "/productos/*/eliminar").hasRole("ADMIN")
+                .requestMatchers("/productos/nuevo", "/productos/*/editar", "/productos/*/eliminar",
+                                 "/productos/importar", "/productos/importar/formulario").hasRole("ADMIN")
                 .requestMatchers("/productos/**").hasAnyRole("USER", "ADMIN")
+                // Actuator: health público, métricas solo ADMIN
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                // API: estadísticas de caché y métricas solo ADMIN; movimientos de stock para usuarios autenticados
+                .requestMatchers("/api/cache/**", "/api/metricas/**").hasRole("ADMIN")
+                .requestMatchers("/api/**").hasAnyRole("USER", "ADMIN")
                 // Todo lo demás requiere autenticación
                 .anyRequest().authenticated()
             )
@@ -64,15 +70,27 @@ public class SecurityConfig {
                 .failureUrl("/login?error=true")
                 .permitAll()
             )
+            // "Recordarme": la cookie autentica sin volver a pedir (ni verificar) la contraseña
+            .rememberMe(recordar -> recordar
+                .key(secreto.isEmpty() ? UUID.randomUUID().toString() : secreto)
+                .userDetailsService(usuarios)
+                .tokenValiditySeconds(recordarmeDias * 24 * 3600)
+            )
+            // API sin autenticar: 401 en vez de redirigir al formulario de login
+            .exceptionHandling(ex -> ex
+                .defaultAuthenticationEntryPointFor(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+                                                    new AntPathRequestMatcher("/api/**"))
+            )
             .logout(logout -> logout
                 .logoutUrl("/logout")
                 .logoutSuccessUrl("/login?logout=true")
                 .invalidateHttpSession(true)
-                .deleteCookies("JSESSIONID")
+                .deleteCookies("JSESSIONID", "remember-me")
                 .permitAll()
             )
             .csrf(csrf -> csrf
-                .ignoringRequestMatchers("/h2-console/**")
+                .ignoringRequestMatchers("/h2-console/**", "/api/auth/token")
+                .ignoringRequestMatchers(TokenAuthenticationFilter::tieneToken)
             )
             .headers(headers -> headers
                 .frameOptions(frame -> frame.sameOrigin())
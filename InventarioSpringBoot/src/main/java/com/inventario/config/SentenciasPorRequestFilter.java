@@ -0,0 +1,43 @@
+package com.inventario.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Registra cuántas sentencias SQL ejecutó Hibernate en cada request
+ * (inventario.hibernate.sentencias, por método HTTP y patrón de URI).
+ */
+@Component
+public class SentenciasPorRequestFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        ContadorSentencias.reiniciar();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Solo requests resueltas por un controlador: evita una serie por cada recurso estático
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (uri != null) {
+                DistributionSummary.builder("inventario.hibernate.sentencias")
+                        .tags("method", request.getMethod(), "uri", uri.toString())
+                        .register(registry)
+                        .record(ContadorSentencias.sentencias());
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.inventario.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tiempo de arranque medido desde el inicio de la JVM: hasta que la
+ * aplicación está lista y hasta que termina de atender el primer request
+ * (con inicialización perezosa, este incluye crear los beans que use).
+ * Se informa en el log y como gauges inventario.arranque.listo e
+ * inventario.arranque.primer-request (ms).
+ */
+@Component
+public class TiempoArranque extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(TiempoArranque.class);
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final AtomicBoolean primerRequest = new AtomicBoolean();
+    private volatile double listoMs = Double.NaN;
+    private volatile double primerRequestMs = Double.NaN;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void listo(ApplicationReadyEvent evento) {
+        listoMs = desdeInicioJvm();
+        registry.gauge("inventario.arranque.listo", this, t -> t.listoMs);
+        registry.gauge("inventario.arranque.primer-request", this, t -> t.primerRequestMs);
+        log.info("Aplicación lista a los {} ms de iniciar la JVM (contexto Spring: {} ms)",
+                (long) listoMs, evento.getTimeTaken() != null ? evento.getTimeTaken().toMillis() : -1);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        if (primerRequest.get()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (primerRequest.compareAndSet(false, true)) {
+                primerRequestMs = desdeInicioJvm();
+                log.info("Primer request ({} {}) atendido a los {} ms de iniciar la JVM (duró {} ms)",
+                        request.getMethod(), request.getRequestURI(), (long) primerRequestMs,
+                        (System.nanoTime() - inicio) / 1_000_000);
+            }
+        }
+    }
+
+    private static double desdeInicioJvm() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,74 @@
+package com.inventario.config;
+
+import com.inventario.model.Usuario;
+import com.inventario.service.TokenService;
+import com.inventario.service.UsuarioDetallesService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Autentica "Authorization: Bearer &lt;token&gt;" sin sesión HTTP.
+ *
+ * El contexto de seguridad solo vive durante el request (no se guarda en
+ * la sesión). El usuario sale de la caché de UsuarioDetallesService, así
+ * que desactivarlo o cambiarle el rol aplica sin esperar a que expire el
+ * token, pero no al instante: la aplicación no tiene alta ni edición de
+ * usuarios, y un cambio hecho en la tabla se ve cuando vence la entrada de
+ * la caché "usuarios" (expireAfterWrite, 10 minutos). Con un token inválido el request sigue sin autenticar y la
+ * autorización responde 401/403.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    static final String PREFIJO = "Bearer ";
+
+    private final TokenService tokenService;
+    private final UsuarioDetallesService usuarios;
+
+    public TokenAuthenticationFilter(TokenService tokenService, UsuarioDetallesService usuarios) {
+        this.tokenService = tokenService;
+        this.usuarios = usuarios;
+    }
+
+    // Requests con token: sin CSRF (no hay cookie de sesión que un sitio ajeno pueda reutilizar)
+    static boolean tieneToken(HttpServletRequest request) {
+        String cabecera = request.getHeader("Authorization");
+        return cabecera != null && cabecera.startsWith(PREFIJO);
+    }
+
+    // También en el dispatch a /error: sin esto un 403 del controlador se vuelve 401
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        if (tieneToken(request)) {
+            String username = tokenService.validar(request.getHeader("Authorization").substring(PREFIJO.length()).trim());
+            Optional<Usuario> usuario = username != null ? usuarios.buscar(username) : Optional.empty();
+            if (usuario.isPresent() && Boolean.TRUE.equals(usuario.get().getActivo())) {
+                // Principal UserDetails como en el login por formulario (las vistas leen principal.authorities)
+                UserDetails principal = User.withUsername(username).password("")
+                        .roles(usuario.get().getRol()).build();
+                UsernamePasswordAuthenticationToken autenticacion = UsernamePasswordAuthenticationToken.authenticated(
+                        principal, null, principal.getAuthorities());
+                SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+                contexto.setAuthentication(autenticacion);
+                SecurityContextHolder.setContext(contexto);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
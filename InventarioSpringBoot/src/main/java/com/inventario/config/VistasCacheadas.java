@@ -0,0 +1,133 @@
+package com.inventario.config;
+
+import com.inventario.service.CachesProducto;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renderizado condicional de las vistas HTML.
+ *
+ * Cada página lleva un ETag débil con la versión del catálogo
+ * (CachesProducto, cambia con cada escritura y cruce de umbral), la sesión
+ * y la URL: si el navegador ya tiene esa versión recibe un 304 sin que se
+ * consulten datos ni se renderice nada. Las partes caras de la página
+ * (tablas y datos de los gráficos) se renderizan aparte desde
+ * templates/fragmentos y se guardan en la caché "fragmentos" por versión,
+ * así un usuario distinto o una sesión nueva reutilizan el HTML ya hecho.
+ * Las páginas con mensajes flash no se cachean.
+ */
+@Component
+public class VistasCacheadas {
+
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    @Autowired
+    private CachesProducto caches;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    // Distingue las versiones de antes y después de un reinicio (la versión vuelve a 0)
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+
+    private volatile JakartaServletWebApplication aplicacion;
+
+    // Leerla antes que los datos: si cambia en medio, la página sale con la versión vieja y se renderiza la próxima vez
+    public long version() {
+        return caches.version();
+    }
+
+    /**
+     * true si el navegador ya tiene esta versión de la página (la respuesta
+     * queda en 304 y el controlador debe devolver null); si no, deja el
+     * ETag y Cache-Control para la respuesta completa.
+     */
+    public boolean noModificada(WebRequest webRequest, long version) {
+        ServletWebRequest servlet = (ServletWebRequest) webRequest;
+        HttpServletRequest request = servlet.getRequest();
+        HttpServletResponse response = servlet.getResponse();
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(request);
+        if (flash != null && !flash.isEmpty()) {
+            if (response != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            }
+            return false;
+        }
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return webRequest.checkNotModified(etag(request, version));
+    }
+
+    /**
+     * Fragmentos de una plantilla renderizados con las variables dadas, o
+     * tomados de la caché si ya se renderizaron con la misma clave (que debe
+     * incluir la versión del catálogo y todo lo que cambie el HTML).
+     */
+    public Map<String, String> fragmentos(String plantilla, String clave, Map<String, Object> variables,
+                                          WebRequest webRequest, String... nombres) {
+        Cache cache = cacheManager.getCache(CachesProducto.FRAGMENTOS);
+        Map<String, String> resultado = new LinkedHashMap<>();
+        for (String nombre : nombres) {
+            String claveFragmento = plantilla + "::" + nombre + "|" + clave;
+            String html = cache != null ? cache.get(claveFragmento, String.class) : null;
+            if (html == null) {
+                html = renderizar(plantilla, nombre, variables, (ServletWebRequest) webRequest);
+                if (cache != null) {
+                    cache.put(claveFragmento, html);
+                }
+            }
+            resultado.put(nombre, html);
+        }
+        return resultado;
+    }
+
+    private String renderizar(String plantilla, String fragmento, Map<String, Object> variables,
+                              ServletWebRequest webRequest) {
+        HttpServletRequest request = webRequest.getRequest();
+        JakartaServletWebApplication app = aplicacion;
+        if (app == null) {
+            app = JakartaServletWebApplication.buildApplication(request.getServletContext());
+            aplicacion = app;
+        }
+        WebContext contexto = new WebContext(app.buildExchange(request, webRequest.getResponse()),
+                RequestContextUtils.getLocale(request), variables);
+        return templateEngine.process(new TemplateSpec(plantilla, Set.of(fragmento), TemplateMode.HTML, null),
+                contexto);
+    }
+
+    // ETag débil: el HTML cambia entre respuestas (token CSRF enmascarado) pero es equivalente
+    private String etag(HttpServletRequest request, long version) {
+        Principal usuario = request.getUserPrincipal();
+        StringBuilder base = new StringBuilder()
+                .append(arranque).append('|').append(version)
+                .append('|').append(request.getRequestedSessionId())
+                .append('|').append(usuario != null ? usuario.getName() : "")
+                .append('|').append(request.getRequestURI())
+                .append('?').append(request.getQueryString());
+        return "W/\"" + DigestUtils.md5DigestAsHex(base.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,76 @@
+package com.inventario.controller;
+
+import com.inventario.model.Producto;
+import com.inventario.service.AlertasStock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/alertas")
+public class AlertaApiController {
+
+    @Autowired
+    private AlertasStock alertas;
+
+    // GET - Productos bajo su umbral de reorden, de menor a mayor stock (?nivel=CRITICO solo los críticos)
+    @GetMapping("/stock")
+    public List<Map<String, Object>> stock(@RequestParam(required = false) String nivel) {
+        List<Producto> productos = "CRITICO".equalsIgnoreCase(nivel) ? alertas.criticos() : alertas.enRiesgo();
+        List<Map<String, Object>> resultado = new ArrayList<>(productos.size());
+        for (Producto p : productos) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("id", p.getId());
+            fila.put("codigo", p.getCodigo());
+            fila.put("nombre", p.getNombre());
+            fila.put("categoria", p.getCategoria());
+            fila.put("stock", p.getStock());
+            fila.put("umbral", alertas.umbral(p));
+            fila.put("nivel", alertas.nivel(p));
+            resultado.add(fila);
+        }
+        return resultado;
+    }
+
+    // GET - Umbral global y umbrales por categoría
+    @GetMapping("/umbrales")
+    public Map<String, Object> umbrales() {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("porDefecto", alertas.getUmbralPorDefecto());
+        resultado.put("categorias", alertas.umbralesPorCategoria());
+        return resultado;
+    }
+
+    // PUT - Umbral de una categoría: {"umbral": 20}
+    @PutMapping("/umbrales/{categoria}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> fijarUmbral(@PathVariable String categoria, @RequestBody Map<String, Integer> cuerpo) {
+        Integer umbral = cuerpo.get("umbral");
+        if (umbral == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El umbral es obligatorio"));
+        }
+        try {
+            alertas.fijarUmbralCategoria(categoria, umbral);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(umbrales());
+    }
+
+    // DELETE - Quitar el umbral de una categoría (vuelve al global)
+    @DeleteMapping("/umbrales/{categoria}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> quitarUmbral(@PathVariable String categoria) {
+        try {
+            alertas.fijarUmbralCategoria(categoria, null);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(umbrales());
+    }
+}
@@ -0,0 +1,67 @@
+package com.inventario.controller;
+
+import com.inventario.service.TokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/auth")
+public class AuthApiController {
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private TokenService tokenService;
+
+    // POST - Usuario y contraseña (un BCrypt) a cambio de un token Bearer para las siguientes llamadas
+    @PostMapping("/token")
+    public ResponseEntity<Map<String, Object>> token(@RequestBody Credenciales credenciales) {
+        Authentication autenticacion;
+        try {
+            autenticacion = authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(
+                    credenciales.getUsername(), credenciales.getPassword()));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Usuario o contraseña incorrectos"));
+        }
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("token", tokenService.emitir(autenticacion.getName()));
+        respuesta.put("tipo", "Bearer");
+        respuesta.put("expiraEnSegundos", tokenService.getDuracionSegundos());
+        return ResponseEntity.ok(respuesta);
+    }
+
+    public static class Credenciales {
+
+        private String username;
+        private String password;
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+}
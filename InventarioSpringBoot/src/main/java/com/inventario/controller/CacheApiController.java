@@ -0,0 +1,45 @@
+package com.inventario.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@PreAuthorize("hasRole('ADMIN')")
+public class CacheApiController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // GET - Aciertos, fallos, desalojos y tamaño de cada caché (para dimensionarlas)
+    @GetMapping("/estadisticas")
+    public Map<String, Object> estadisticas() {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        for (String nombre : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(nombre);
+            if (cache instanceof CaffeineCache) {
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> nativa = ((CaffeineCache) cache).getNativeCache();
+                CacheStats stats = nativa.stats();
+                Map<String, Object> datos = new LinkedHashMap<>();
+                datos.put("tamano", nativa.estimatedSize());
+                datos.put("aciertos", stats.hitCount());
+                datos.put("fallos", stats.missCount());
+                datos.put("tasaAciertos", stats.hitRate());
+                datos.put("desalojos", stats.evictionCount());
+                datos.put("cargas", stats.loadCount());
+                datos.put("tiempoPromedioCargaMs", stats.averageLoadPenalty() / 1_000_000.0);
+                resultado.put(nombre, datos);
+            }
+        }
+        return resultado;
+    }
+}
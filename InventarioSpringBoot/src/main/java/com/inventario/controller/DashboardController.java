@@ -1,10 +1,15 @@
 package com.inventario.controller;
 
+import com.inventario.config.VistasCacheadas;
+import com.inventario.service.DashboardEnVivo;
 import com.inventario.service.EstadisticasService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.Map;
 
 @Controller
@@ -13,10 +18,29 @@ public class DashboardController {
     @Autowired
     private EstadisticasService estadisticasService;
 
+    @Autowired
+    private DashboardEnVivo dashboardEnVivo;
+
+    @Autowired
+    private VistasCacheadas vistas;
+
+    // 304 si el catálogo no cambió desde la última vista; tablas y datos de gráficos desde la caché de fragmentos
     @GetMapping({"/", "/dashboard"})
-    public String dashboard(Model model) {
+    public String dashboard(Model model, WebRequest request) {
+        long version = vistas.version();
+        if (vistas.noModificada(request, version)) {
+            return null;
+        }
         Map<String, Object> estadisticas = estadisticasService.obtenerEstadisticas();
         model.addAllAttributes(estadisticas);
+        model.addAttribute("fragmentos", vistas.fragmentos("fragmentos/dashboard", Long.toString(version),
+                estadisticas, request, "datosGraficos", "stockCritico", "productosCaros"));
         return "dashboard";
     }
+
+    // Cambios en vivo para el dashboard abierto (Server-Sent Events)
+    @GetMapping(path = "/dashboard/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventos() {
+        return dashboardEnVivo.suscribir();
+    }
 }
@@ -0,0 +1,68 @@
+package com.inventario.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/metricas")
+@PreAuthorize("hasRole('ADMIN')")
+public class MetricasApiController {
+
+    private static final List<String> METRICAS = List.of(
+            "http.server.requests", "inventario.metodo", "inventario.filas", "inventario.hibernate.sentencias");
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // GET - Conteo, media, p50, p99 y máximo de cada serie (ms para tiempos), ordenado por nombre y tags
+    @GetMapping
+    public Map<String, Map<String, Object>> resumen() {
+        Map<String, Map<String, Object>> resultado = new LinkedHashMap<>();
+        for (String nombre : METRICAS) {
+            Map<String, Object> series = new TreeMap<>();
+            for (Meter meter : registry.find(nombre).meters()) {
+                HistogramSnapshot snapshot;
+                if (meter instanceof Timer) {
+                    snapshot = ((Timer) meter).takeSnapshot();
+                } else if (meter instanceof DistributionSummary) {
+                    snapshot = ((DistributionSummary) meter).takeSnapshot();
+                } else {
+                    continue;
+                }
+                boolean tiempo = meter instanceof Timer;
+                Map<String, Object> datos = new LinkedHashMap<>();
+                datos.put("conteo", snapshot.count());
+                datos.put("media", tiempo ? snapshot.mean(TimeUnit.MILLISECONDS) : snapshot.mean());
+                for (ValueAtPercentile p : snapshot.percentileValues()) {
+                    datos.put("p" + Math.round(p.percentile() * 100),
+                            tiempo ? p.value(TimeUnit.MILLISECONDS) : p.value());
+                }
+                datos.put("maximo", tiempo ? snapshot.max(TimeUnit.MILLISECONDS) : snapshot.max());
+                series.put(etiquetas(meter), datos);
+            }
+            resultado.put(nombre, series);
+        }
+        return resultado;
+    }
+
+    private static String etiquetas(Meter meter) {
+        return meter.getId().getTags().stream()
+                .map(t -> t.getKey() + "=" + t.getValue())
+                .collect(Collectors.joining(","));
+    }
+}
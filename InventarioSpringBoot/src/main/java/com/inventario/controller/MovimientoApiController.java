@@ -0,0 +1,58 @@
+package com.inventario.controller;
+
+import com.inventario.model.MovimientoDiario;
+import com.inventario.model.MovimientoStock;
+import com.inventario.service.LibroMovimientos;
+import com.inventario.service.StockEnFecha;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/movimientos")
+public class MovimientoApiController {
+
+    private static final int LIMITE_MAXIMO = 500;
+
+    @Autowired
+    private LibroMovimientos libro;
+
+    // GET - Stock de un producto en una fecha (?en=2024-05-01T10:00:00, por defecto ahora)
+    @GetMapping("/productos/{id}/stock")
+    public ResponseEntity<?> stockEn(@PathVariable Integer id,
+                                     @RequestParam(required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime en) {
+        LocalDateTime fecha = en != null ? en : LocalDateTime.now();
+        return libro.stockEn(id, fecha)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404)
+                        .body(Map.of("error", "Sin historial de stock del producto " + id + " en esa fecha")));
+    }
+
+    // GET - Movimientos de un producto, del más reciente hacia atrás (?antesDe=<id> para la página siguiente)
+    @GetMapping("/productos/{id}")
+    public List<MovimientoStock> historial(@PathVariable Integer id,
+                                           @RequestParam(required = false) Long antesDe,
+                                           @RequestParam(defaultValue = "100") int limite) {
+        return libro.historial(id, antesDe, Math.max(1, Math.min(limite, LIMITE_MAXIMO)));
+    }
+
+    // GET - Movimientos por categoría y día (?desde=2024-05-01&hasta=2024-05-31&categoria=Muebles)
+    @GetMapping("/diarios")
+    public ResponseEntity<?> diarios(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                     @RequestParam(required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                     @RequestParam(required = false) String categoria) {
+        LocalDate fin = hasta != null ? hasta : LocalDate.now();
+        if (fin.isBefore(desde)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "La fecha hasta no puede ser anterior a desde"));
+        }
+        List<MovimientoDiario> filas = libro.diarios(desde, fin, categoria);
+        return ResponseEntity.ok(filas);
+    }
+}
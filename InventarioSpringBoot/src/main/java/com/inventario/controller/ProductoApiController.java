@@ -0,0 +1,347 @@
+package com.inventario.controller;
+
+import com.inventario.model.Producto;
+import com.inventario.service.CambiosCatalogo;
+import com.inventario.service.CursorVencidoException;
+import com.inventario.service.OperacionMasivaService;
+import com.inventario.service.ProductoNoEncontradoException;
+import com.inventario.service.ProductoService;
+import com.inventario.service.ResultadoOperacionMasiva;
+import com.inventario.service.SincronizacionService;
+import com.inventario.service.StockInsuficienteException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import java.net.URI;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/productos")
+public class ProductoApiController {
+
+    @Autowired
+    private ProductoService service;
+
+    @Autowired
+    private SincronizacionService sincronizacion;
+
+    @Autowired
+    private OperacionMasivaService operacionesMasivas;
+
+    @Autowired
+    private Validator validator;
+
+    // GET - Listado paginado (mismos filtros y orden que /productos); ETag del contenido de la página
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listar(
+            @RequestParam(required = false) String buscar,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) String ordenar,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + ProductoService.TAMANO_PAGINA_DEFECTO) int size,
+            WebRequest request) {
+        Page<Producto> pagina = service.buscarYFiltrar(buscar, categoria, ordenar, page, size);
+        if (request.checkNotModified(etag(pagina))) {
+            return null;
+        }
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("contenido", pagina.getContent());
+        cuerpo.put("pagina", pagina.getNumber());
+        cuerpo.put("tamano", pagina.getSize());
+        cuerpo.put("totalElementos", pagina.getTotalElements());
+        cuerpo.put("totalPaginas", pagina.getTotalPages());
+        return ResponseEntity.ok(cuerpo);
+    }
+
+    // GET - Sincronización incremental: cambios y bajas posteriores al cursor (0 = todo el catálogo)
+    @GetMapping("/cambios")
+    public CambiosCatalogo cambios(@RequestParam(defaultValue = "0") long desde,
+                                   @RequestParam(defaultValue = "500") int limite) throws Exception {
+        return sincronizacion.cambiosDesde(desde, limite);
+    }
+
+    // GET - Un producto; 304 si el cliente ya tiene la versión actual
+    @GetMapping("/{id}")
+    public ResponseEntity<Producto> obtener(@PathVariable Integer id, WebRequest request) throws Exception {
+        Producto p = service.obtenerPorId(id).orElseThrow(() -> new ProductoNoEncontradoException(id));
+        return condicional(p, request);
+    }
+
+    // GET - Un producto por código
+    @GetMapping("/codigo/{codigo}")
+    public ResponseEntity<Producto> obtenerPorCodigo(@PathVariable String codigo, WebRequest request) {
+        Optional<Producto> p = service.obtenerPorCodigo(codigo);
+        if (!p.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return condicional(p.get(), request);
+    }
+
+    // POST - Crear
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> crear(@Valid @RequestBody Producto producto) {
+        producto.setId(null);
+        producto.setVersion(null);
+        Producto creado;
+        try {
+            creado = service.crear(producto);
+        } catch (Exception e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage(), null);
+        }
+        return ResponseEntity.created(URI.create("/api/productos/" + creado.getId()))
+                .eTag(etag(creado))
+                .body(creado);
+    }
+
+    // PUT - Actualizar (el código no cambia; los campos nulos se conservan)
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> actualizar(@PathVariable Integer id, @RequestBody Producto producto) throws Exception {
+        // Mismas reglas que @Valid en el POST, solo para los campos enviados (un campo nulo no es un error aquí)
+        Map<String, String> campos = new LinkedHashMap<>();
+        for (ConstraintViolation<Producto> violacion : validator.validate(producto)) {
+            if (violacion.getInvalidValue() != null) {
+                campos.putIfAbsent(violacion.getPropertyPath().toString(), violacion.getMessage());
+            }
+        }
+        if (!campos.isEmpty()) {
+            return datosInvalidos(campos);
+        }
+        service.obtenerPorId(id).orElseThrow(() -> new ProductoNoEncontradoException(id));
+        Producto actualizado;
+        try {
+            actualizado = service.actualizar(id, producto);
+        } catch (Exception e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage(), id);
+        }
+        return ResponseEntity.ok().eTag(etag(actualizado)).body(actualizado);
+    }
+
+    // DELETE - Eliminar
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> eliminar(@PathVariable Integer id) throws Exception {
+        service.obtenerPorId(id).orElseThrow(() -> new ProductoNoEncontradoException(id));
+        service.eliminar(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // POST - Movimiento de stock de un producto: {"delta": -3}
+    @PostMapping("/{id}/stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Producto ajustarStock(@PathVariable Integer id, @RequestBody AjusteStock ajuste) throws Exception {
+        return service.ajustarStock(id, ajuste.getDelta());
+    }
+
+    // POST - Movimientos de varios productos en una transacción: [{"id": 1, "delta": -2}, ...]
+    @PostMapping("/stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<Producto> ajustarStockLote(@RequestBody List<AjusteStock> ajustes) throws Exception {
+        return service.ajustarStock(agrupar(ajustes));
+    }
+
+    // POST - Reserva de stock de un producto (write-behind si está habilitado): {"delta": -1}
+    @PostMapping("/{id}/reserva")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<Integer, Integer> reservar(@PathVariable Integer id, @RequestBody AjusteStock ajuste) throws Exception {
+        return service.reservarStock(Map.of(id, ajuste.getDelta()));
+    }
+
+    // POST - Reserva de varios productos, todo o nada: [{"id": 1, "delta": -2}, ...]
+    @PostMapping("/reservas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<Integer, Integer> reservarLote(@RequestBody List<AjusteStock> ajustes) throws Exception {
+        return service.reservarStock(agrupar(ajustes));
+    }
+
+    // POST - Activar o desactivar varios productos: {"ids": [1, 2, 3], "activo": false}
+    @PostMapping("/lote/activo")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> cambiarActivoLote(@RequestBody OperacionLote operacion) {
+        return masiva(() -> operacionesMasivas.cambiarActivo(operacion.getIds(), operacion.getActivo()));
+    }
+
+    // POST - Mover varios productos a otra categoría: {"ids": [...], "categoria": "Muebles"}
+    @PostMapping("/lote/categoria")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> cambiarCategoriaLote(@RequestBody OperacionLote operacion) {
+        return masiva(() -> operacionesMasivas.cambiarCategoria(operacion.getIds(), operacion.getCategoria()));
+    }
+
+    // POST - Ajustar el precio de varios productos en un porcentaje: {"ids": [...], "porcentaje": -10}
+    @PostMapping("/lote/precio")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> ajustarPrecioLote(@RequestBody OperacionLote operacion) {
+        return masiva(() -> operacionesMasivas.ajustarPrecio(operacion.getIds(), operacion.getPorcentaje()));
+    }
+
+    // POST - Eliminar varios productos en una transacción: {"ids": [...]}
+    @PostMapping("/lote/eliminar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> eliminarLote(@RequestBody OperacionLote operacion) {
+        return masiva(() -> operacionesMasivas.eliminar(operacion.getIds()));
+    }
+
+    @ExceptionHandler(StockInsuficienteException.class)
+    public ResponseEntity<Map<String, Object>> stockInsuficiente(StockInsuficienteException e) {
+        return error(HttpStatus.CONFLICT, e.getMessage(), e.getProductoId());
+    }
+
+    @ExceptionHandler(ProductoNoEncontradoException.class)
+    public ResponseEntity<Map<String, Object>> noEncontrado(ProductoNoEncontradoException e) {
+        return error(HttpStatus.NOT_FOUND, e.getMessage(), e.getProductoId());
+    }
+
+    @ExceptionHandler(CursorVencidoException.class)
+    public ResponseEntity<Map<String, Object>> cursorVencido(CursorVencidoException e) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("error", e.getMessage());
+        cuerpo.put("cursor", e.getCursor());
+        return ResponseEntity.status(HttpStatus.GONE).body(cuerpo);
+    }
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Map<String, Object>> invalido(MethodArgumentNotValidException e) {
+        Map<String, String> campos = new LinkedHashMap<>();
+        e.getBindingResult().getFieldErrors().forEach(f -> campos.putIfAbsent(f.getField(), f.getDefaultMessage()));
+        return datosInvalidos(campos);
+    }
+
+    private static ResponseEntity<Map<String, Object>> datosInvalidos(Map<String, String> campos) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("error", "Datos inválidos");
+        cuerpo.put("campos", campos);
+        return ResponseEntity.badRequest().body(cuerpo);
+    }
+
+    // 304 (sin serializar el cuerpo) si If-None-Match o If-Modified-Since coinciden
+    private static ResponseEntity<Producto> condicional(Producto p, WebRequest request) {
+        long ultimaModificacion = p.getActualizadoEn() != null
+                ? p.getActualizadoEn().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+        if (request.checkNotModified(etag(p), ultimaModificacion)) {
+            return null;
+        }
+        return ResponseEntity.ok(p);
+    }
+
+    // ETag fuerte por producto: id y versión de la fila, más el stock visible (write-behind no cambia la versión)
+    private static String etag(Producto p) {
+        return "\"" + p.getId() + "-" + p.getVersion() + "-" + p.getStock() + "\"";
+    }
+
+    // ETag de una página: ids y versiones de su contenido más el total (un alta o baja cambia páginas)
+    private static String etag(Page<Producto> pagina) {
+        long hash = pagina.getTotalElements();
+        for (Producto p : pagina.getContent()) {
+            hash = 31 * hash + p.getId();
+            hash = 31 * hash + (p.getVersion() != null ? p.getVersion() : 0);
+            hash = 31 * hash + (p.getStock() != null ? p.getStock() : 0);
+        }
+        return "\"p-" + Long.toHexString(hash) + "\"";
+    }
+
+    private static Map<Integer, Integer> agrupar(List<AjusteStock> ajustes) {
+        Map<Integer, Integer> deltas = new LinkedHashMap<>();
+        for (AjusteStock ajuste : ajustes) {
+            deltas.merge(ajuste.getId(), ajuste.getDelta(), Integer::sum);
+        }
+        return deltas;
+    }
+
+    // Contadores de la operación, o 400 con el motivo si se rechazó (no se aplicó ningún cambio)
+    private ResponseEntity<?> masiva(Masiva operacion) {
+        try {
+            return ResponseEntity.ok(operacion.ejecutar());
+        } catch (Exception e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage(), null);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String mensaje, Integer id) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("error", mensaje);
+        cuerpo.put("id", id);
+        return ResponseEntity.status(status).body(cuerpo);
+    }
+
+    public static class AjusteStock {
+
+        private Integer id;
+        private int delta;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public int getDelta() {
+            return delta;
+        }
+
+        public void setDelta(int delta) {
+            this.delta = delta;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Masiva {
+        ResultadoOperacionMasiva ejecutar() throws Exception;
+    }
+
+    public static class OperacionLote {
+
+        private List<Integer> ids;
+        private Boolean activo;
+        private String categoria;
+        private Double porcentaje;
+
+        public List<Integer> getIds() {
+            return ids;
+        }
+
+        public void setIds(List<Integer> ids) {
+            this.ids = ids;
+        }
+
+        public Boolean getActivo() {
+            return activo;
+        }
+
+        public void setActivo(Boolean activo) {
+            this.activo = activo;
+        }
+
+        public String getCategoria() {
+            return categoria;
+        }
+
+        public void setCategoria(String categoria) {
+            this.categoria = categoria;
+        }
+
+        public Double getPorcentaje() {
+            return porcentaje;
+        }
+
+        public void setPorcentaje(Double porcentaje) {
+            this.porcentaje = porcentaje;
+        }
+    }
+}
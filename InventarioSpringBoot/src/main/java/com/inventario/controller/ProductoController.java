@@ -1,38 +1,83 @@
 package com.inventario.controller;
 
+import com.inventario.config.VistasCacheadas;
 import com.inventario.model.Producto;
+import com.inventario.service.ExportacionService;
+import com.inventario.service.ImportacionService;
+import com.inventario.service.OperacionMasivaService;
 import com.inventario.service.ProductoService;
+import com.inventario.service.ResultadoImportacion;
+import com.inventario.service.ResultadoOperacionMasiva;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
 @RequestMapping("/productos")
 public class ProductoController {
 
+    // Errores por fila que entran en el mensaje del listado (el reporte completo lo da POST /productos/importar)
+    private static final int ERRORES_EN_RESUMEN = 5;
+
     @Autowired
     private ProductoService service;
 
-    // GET - Listar todos (Vista HTML) con búsqueda y filtros
+    @Autowired
+    private ImportacionService importacionService;
+
+    @Autowired
+    private ExportacionService exportacionService;
+
+    @Autowired
+    private OperacionMasivaService operacionesMasivas;
+
+    @Autowired
+    private VistasCacheadas vistas;
+
+    // GET - Listar todos (Vista HTML) con búsqueda y filtros; 304 si el catálogo no cambió, filas desde la caché de fragmentos
     @GetMapping
     public String listar(
             @RequestParam(value = "buscar", required = false) String buscar,
             @RequestParam(value = "categoria", required = false) String categoria,
             @RequestParam(value = "ordenar", required = false) String ordenar,
-            Model model) {
-        
-        List<Producto> productos = service.buscarYFiltrar(buscar, categoria, ordenar);
-        model.addAttribute("productos", productos);
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "" + ProductoService.TAMANO_PAGINA_DEFECTO) int size,
+            Model model, WebRequest request) {
+        long version = vistas.version();
+        if (vistas.noModificada(request, version)) {
+            return null;
+        }
+
+        Page<Producto> pagina = service.buscarYFiltrar(buscar, categoria, ordenar, page, size);
+        boolean admin = request.isUserInRole("ADMIN");
+        String clave = version + "|" + buscar + "|" + categoria + "|" + ordenar + "|"
+                + pagina.getNumber() + "|" + pagina.getSize() + "|" + admin;
+        model.addAttribute("fragmentos", vistas.fragmentos("fragmentos/productos", clave,
+                Map.of("productos", pagina.getContent(), "admin", admin), request, "filasProductos"));
+        model.addAttribute("productos", pagina.getContent());
+        model.addAttribute("pagina", pagina);
         model.addAttribute("buscar", buscar);
         model.addAttribute("categoria", categoria);
         model.addAttribute("ordenar", ordenar);
+        model.addAttribute("size", pagina.getSize());
         
         return "productos/listado";
     }
@@ -114,7 +159,7 @@ public class ProductoController {
         }
         
         try {
-            service.actualizar(id, producto);
+            service.actualizar(id, producto, true);
             redirect.addFlashAttribute("mensaje", "Producto actualizado exitosamente");
             redirect.addFlashAttribute("tipo", "success");
         } catch (Exception e) {
@@ -139,6 +184,131 @@ public class ProductoController {
         return "redirect:/productos";
     }
 
+    // POST - Acción sobre los productos seleccionados en el listado (solo ADMIN), en una transacción
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/lote")
+    public String lote(@RequestParam(value = "ids", required = false) List<Integer> ids,
+                       @RequestParam("accion") String accion,
+                       @RequestParam(value = "categoria", required = false) String categoria,
+                       @RequestParam(value = "porcentaje", required = false) Double porcentaje,
+                       RedirectAttributes redirect) {
+        try {
+            ResultadoOperacionMasiva resultado;
+            String hecho;
+            switch (accion) {
+                case "activar":
+                    resultado = operacionesMasivas.cambiarActivo(ids, true);
+                    hecho = "activados";
+                    break;
+                case "desactivar":
+                    resultado = operacionesMasivas.cambiarActivo(ids, false);
+                    hecho = "desactivados";
+                    break;
+                case "categoria":
+                    resultado = operacionesMasivas.cambiarCategoria(ids, categoria);
+                    hecho = "movidos a " + categoria.trim();
+                    break;
+                case "precio":
+                    resultado = operacionesMasivas.ajustarPrecio(ids, porcentaje);
+                    hecho = "con precio ajustado en " + porcentaje + "%";
+                    break;
+                case "eliminar":
+                    resultado = operacionesMasivas.eliminar(ids);
+                    hecho = "eliminados";
+                    break;
+                default:
+                    throw new Exception("Acción desconocida: " + accion);
+            }
+            String mensaje = resultado.getAfectados() + " productos " + hecho;
+            if (resultado.getTotalNoEncontrados() > 0) {
+                mensaje += " (" + resultado.getTotalNoEncontrados() + " ya no existían)";
+            }
+            redirect.addFlashAttribute("mensaje", mensaje);
+            redirect.addFlashAttribute("tipo", "success");
+        } catch (Exception e) {
+            redirect.addFlashAttribute("mensaje", "Error: " + e.getMessage());
+            redirect.addFlashAttribute("tipo", "error");
+        }
+        return "redirect:/productos";
+    }
+
+    // POST - Importación masiva CSV/JSON (solo ADMIN); responde el reporte por fila en JSON
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/importar")
+    @ResponseBody
+    public ResponseEntity<ResultadoImportacion> importar(
+            @RequestParam("archivo") MultipartFile archivo,
+            @RequestParam(value = "formato", required = false) String formato) throws IOException {
+        ResultadoImportacion resultado = importarArchivo(archivo, formato);
+        return resultado != null ? ResponseEntity.ok(resultado) : ResponseEntity.badRequest().build();
+    }
+
+    // POST - La misma importación desde el formulario del listado: vuelve al listado con un resumen
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/importar/formulario")
+    public String importarFormulario(@RequestParam("archivo") MultipartFile archivo,
+                                     RedirectAttributes redirect) {
+        try {
+            ResultadoImportacion resultado = importarArchivo(archivo, null);
+            StringBuilder mensaje = new StringBuilder()
+                    .append(resultado.getInsertados()).append(" de ")
+                    .append(resultado.getFilasLeidas()).append(" filas importadas");
+            if (resultado.getTotalErrores() > 0) {
+                mensaje.append("; ").append(resultado.getTotalErrores()).append(" con errores");
+                resultado.getErrores().stream().limit(ERRORES_EN_RESUMEN).forEach(e -> mensaje
+                        .append(" · línea ").append(e.getLinea()).append(": ").append(e.getMensaje()));
+            }
+            redirect.addFlashAttribute("mensaje", mensaje.toString());
+            redirect.addFlashAttribute("tipo", resultado.getTotalErrores() == 0 ? "success" : "error");
+        } catch (Exception e) {
+            redirect.addFlashAttribute("mensaje", "Error: " + e.getMessage());
+            redirect.addFlashAttribute("tipo", "error");
+        }
+        return "redirect:/productos";
+    }
+
+    // Formato explícito o por la extensión del archivo; null si no se soporta
+    private ResultadoImportacion importarArchivo(MultipartFile archivo, String formato) throws IOException {
+        String tipo = formato;
+        if (tipo == null || tipo.isBlank()) {
+            String nombre = archivo.getOriginalFilename() != null ? archivo.getOriginalFilename().toLowerCase() : "";
+            tipo = nombre.endsWith(".json") || nombre.endsWith(".ndjson") ? "json" : "csv";
+        }
+
+        try (InputStream entrada = archivo.getInputStream()) {
+            switch (tipo.toLowerCase()) {
+                case "csv":
+                    return importacionService.importarCsv(entrada);
+                case "json":
+                    return importacionService.importarJson(entrada);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    // GET - Exportación del catálogo (CSV o NDJSON) con los mismos filtros del listado
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(value = "formato", defaultValue = "csv") String formato,
+            @RequestParam(value = "buscar", required = false) String buscar,
+            @RequestParam(value = "categoria", required = false) String categoria) {
+        switch (formato.toLowerCase()) {
+            case "csv":
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"productos.csv\"")
+                        .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                        .body(salida -> exportacionService.exportarCsv(buscar, categoria, salida));
+            case "ndjson":
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"productos.ndjson\"")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(salida -> exportacionService.exportarNdjson(buscar, categoria, salida));
+            default:
+                return ResponseEntity.badRequest().build();
+        }
+    }
+
     // GET - Home
     @GetMapping("/")
     public String home() {
@@ -0,0 +1,42 @@
+package com.inventario.controller;
+
+import com.inventario.model.PuntoSerie;
+import com.inventario.service.SeriesInventario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/series")
+public class SerieApiController {
+
+    @Autowired
+    private SeriesInventario series;
+
+    // GET - Tendencia por categoría: ?dias=90 o ?desde=...&hasta=... (ISO), &categoria=, &granularidad=HORA|DIA
+    @GetMapping("/categorias")
+    public ResponseEntity<?> categorias(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(defaultValue = "30") int dias,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) String granularidad) {
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(Math.max(1, dias));
+        if (fin.isBefore(inicio)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "La fecha hasta no puede ser anterior a desde"));
+        }
+        PuntoSerie.Granularidad nivel = null;
+        if (granularidad != null && !granularidad.isBlank()) {
+            try {
+                nivel = PuntoSerie.Granularidad.valueOf(granularidad.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Granularidad inválida: use HORA o DIA"));
+            }
+        }
+        return ResponseEntity.ok(series.rango(inicio, fin, categoria, nivel));
+    }
+}
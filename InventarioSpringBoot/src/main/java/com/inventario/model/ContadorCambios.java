@@ -0,0 +1,60 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Contador global de cambios del catálogo (una sola fila).
+ *
+ * Guarda el final del último bloque de secuencias repartido: SecuenciaCambios
+ * lo avanza en una transacción corta y propia cada vez que agota un bloque en
+ * memoria, así ninguna escritura del catálogo retiene esta fila. Que el feed
+ * no se salte cambios lo resuelve SecuenciaCambios.marcaSegura().
+ */
+@Entity
+@Table(name = "contador_cambios")
+public class ContadorCambios {
+
+    public static final Integer ID_UNICO = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long valor;
+
+    // Secuencia más alta de las bajas ya purgadas: un cursor anterior debe resincronizar desde 0
+    @Column(name = "bajas_purgadas_hasta", nullable = false)
+    private Long bajasPurgadasHasta;
+
+    public ContadorCambios() {}
+
+    public ContadorCambios(Long valor) {
+        this.id = ID_UNICO;
+        this.valor = valor;
+        this.bajasPurgadasHasta = 0L;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getValor() {
+        return valor;
+    }
+
+    public void setValor(Long valor) {
+        this.valor = valor;
+    }
+
+    public Long getBajasPurgadasHasta() {
+        return bajasPurgadasHasta;
+    }
+
+    public void setBajasPurgadasHasta(Long bajasPurgadasHasta) {
+        this.bajasPurgadasHasta = bajasPurgadasHasta;
+    }
+}
@@ -0,0 +1,65 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import java.time.LocalDateTime;
+
+/**
+ * Stock de un producto según el libro hasta el movimiento hastaMovimiento
+ * (inclusive). El stock en cualquier momento posterior es el de la última
+ * instantánea más los movimientos con id mayor; las consultas nunca suman
+ * el historial completo. La instantánea de apertura toma el stock que
+ * tenía el producto cuando empezó a llevarse el libro.
+ */
+@Entity
+@Immutable
+@Table(name = "stock_instantaneas", indexes = {
+    @Index(name = "idx_inst_producto", columnList = "producto_id, hasta_movimiento")
+})
+public class InstantaneaStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Integer productoId;
+
+    @Column(nullable = false)
+    private Integer stock;
+
+    @Column(name = "hasta_movimiento", nullable = false)
+    private Long hastaMovimiento;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(nullable = false)
+    private Boolean apertura;
+
+    public InstantaneaStock() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getProductoId() {
+        return productoId;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public Long getHastaMovimiento() {
+        return hastaMovimiento;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public Boolean getApertura() {
+        return apertura;
+    }
+}
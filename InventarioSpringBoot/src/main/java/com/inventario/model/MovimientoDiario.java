@@ -0,0 +1,79 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Movimientos de stock acumulados por día, categoría y tipo. Se actualiza
+ * en cada volcado del libro, así los reportes por categoría leen una fila
+ * por día sin recorrer los movimientos.
+ */
+@Entity
+@Table(name = "movimientos_diarios")
+@IdClass(MovimientoDiario.Clave.class)
+public class MovimientoDiario {
+
+    @Id
+    private LocalDate dia;
+
+    @Id
+    @Column(length = 50)
+    private String categoria;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private MovimientoStock.Tipo tipo;
+
+    // Cantidad de movimientos
+    @Column(nullable = false)
+    private Long movimientos;
+
+    // Suma de las cantidades (con signo)
+    @Column(nullable = false)
+    private Long unidades;
+
+    public MovimientoDiario() {}
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public MovimientoStock.Tipo getTipo() {
+        return tipo;
+    }
+
+    public Long getMovimientos() {
+        return movimientos;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public static class Clave implements Serializable {
+
+        private LocalDate dia;
+        private String categoria;
+        private MovimientoStock.Tipo tipo;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave)) return false;
+            Clave otra = (Clave) o;
+            return Objects.equals(dia, otra.dia) && Objects.equals(categoria, otra.categoria) && tipo == otra.tipo;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dia, categoria, tipo);
+        }
+    }
+}
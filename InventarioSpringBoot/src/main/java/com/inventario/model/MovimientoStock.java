@@ -0,0 +1,92 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento del libro de stock (solo inserción: nunca se modifica ni se
+ * borra). La cantidad lleva signo: positiva para entradas, negativa para
+ * salidas; los ajustes (altas, bajas y ediciones del stock) con el signo
+ * de la diferencia.
+ */
+@Entity
+@Immutable
+@Table(name = "movimientos_stock", indexes = {
+    @Index(name = "idx_mov_producto", columnList = "producto_id, id")
+})
+public class MovimientoStock {
+
+    public enum Tipo { ENTRADA, SALIDA, AJUSTE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Integer productoId;
+
+    @Column(nullable = false, length = 50)
+    private String codigo;
+
+    @Column(nullable = false, length = 50)
+    private String categoria;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Tipo tipo;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(nullable = false, length = 50)
+    private String usuario;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    public MovimientoStock() {}
+
+    public MovimientoStock(Integer productoId, String codigo, String categoria, Tipo tipo,
+                           Integer cantidad, String usuario, LocalDateTime fecha) {
+        this.productoId = productoId;
+        this.codigo = codigo;
+        this.categoria = categoria;
+        this.tipo = tipo;
+        this.cantidad = cantidad;
+        this.usuario = usuario;
+        this.fecha = fecha;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getProductoId() {
+        return productoId;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+}
@@ -2,11 +2,21 @@ package com.inventario.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+    @Index(name = "idx_codigo", columnList = "codigo"),
+    @Index(name = "idx_categoria", columnList = "categoria"),
+    @Index(name = "idx_activo", columnList = "activo"),
+    @Index(name = "idx_precio", columnList = "precio"),
+    @Index(name = "idx_stock", columnList = "stock"),
+    @Index(name = "idx_secuencia", columnList = "secuencia")
+})
 public class Producto {
     
+    public static final int STOCK_MAXIMO = 999999;
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -41,6 +51,31 @@ public class Producto {
     @Column(nullable = false)
     private Boolean activo = true;
     
+    // Umbral de reorden propio; null = el de su categoría (UmbralCategoria) o el global
+    @Min(value = 0, message = "El umbral de reorden no puede ser negativo")
+    @Max(value = 999999, message = "El umbral de reorden no puede exceder 999,999")
+    @Column(name = "umbral_reorden")
+    private Integer umbralReorden;
+    
+    // Versión de la fila (bloqueo optimista y ETag de la API); DEFAULT 0 para los INSERT por JDBC
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+    
+    @Column(name = "actualizado_en")
+    private LocalDateTime actualizadoEn;
+    
+    // Secuencia global del último cambio (ContadorCambios), cursor de la sincronización incremental.
+    // La escribe solo SecuenciaCambios al final de cada transacción; JPA no la inserta ni la actualiza.
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long secuencia = 0L;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        actualizadoEn = LocalDateTime.now();
+    }
+    
     // Constructores
     public Producto() {}
     
@@ -55,6 +90,16 @@ public class Producto {
         this.activo = activo;
     }
     
+    // Copia independiente del estado actual (para eventos y agregados en memoria)
+    public Producto copiar() {
+        Producto copia = new Producto(id, codigo, nombre, categoria, precio, stock, activo);
+        copia.umbralReorden = umbralReorden;
+        copia.version = version;
+        copia.actualizadoEn = actualizadoEn;
+        copia.secuencia = secuencia;
+        return copia;
+    }
+    
     // Getters y Setters
     public Integer getId() {
         return id;
@@ -112,6 +157,38 @@ public class Producto {
         this.activo = activo;
     }
     
+    public Integer getUmbralReorden() {
+        return umbralReorden;
+    }
+    
+    public void setUmbralReorden(Integer umbralReorden) {
+        this.umbralReorden = umbralReorden;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public LocalDateTime getActualizadoEn() {
+        return actualizadoEn;
+    }
+    
+    public void setActualizadoEn(LocalDateTime actualizadoEn) {
+        this.actualizadoEn = actualizadoEn;
+    }
+    
+    public Long getSecuencia() {
+        return secuencia;
+    }
+    
+    public void setSecuencia(Long secuencia) {
+        this.secuencia = secuencia;
+    }
+    
     @Override
     public String toString() {
         return "Producto{" +
@@ -0,0 +1,69 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Lápida de un producto eliminado, para que los clientes que sincronizan
+ * por cursor también borren su copia local.
+ */
+@Entity
+@Table(name = "producto_bajas", indexes = {
+    @Index(name = "idx_baja_secuencia", columnList = "secuencia")
+})
+public class ProductoBaja {
+
+    @Id
+    @Column(name = "producto_id")
+    private Integer productoId;
+
+    @Column(nullable = false, length = 50)
+    private String codigo;
+
+    @Column(nullable = false)
+    private Long secuencia;
+
+    @Column(name = "eliminado_en", nullable = false)
+    private LocalDateTime eliminadoEn;
+
+    public ProductoBaja() {}
+
+    public ProductoBaja(Integer productoId, String codigo, Long secuencia) {
+        this.productoId = productoId;
+        this.codigo = codigo;
+        this.secuencia = secuencia;
+        this.eliminadoEn = LocalDateTime.now();
+    }
+
+    public Integer getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Integer productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public Long getSecuencia() {
+        return secuencia;
+    }
+
+    public void setSecuencia(Long secuencia) {
+        this.secuencia = secuencia;
+    }
+
+    public LocalDateTime getEliminadoEn() {
+        return eliminadoEn;
+    }
+
+    public void setEliminadoEn(LocalDateTime eliminadoEn) {
+        this.eliminadoEn = eliminadoEn;
+    }
+}
@@ -0,0 +1,44 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Último segmento del journal de stock cuyos movimientos ya están en la tabla
+ * productos. Se actualiza en la misma transacción que aplica el segmento, así
+ * que al reiniciar nunca se aplica dos veces un mismo segmento.
+ */
+@Entity
+@Table(name = "stock_punto_control")
+public class PuntoControlStock {
+
+    public static final Integer ID_UNICO = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long segmento;
+
+    public PuntoControlStock() {}
+
+    public PuntoControlStock(Long segmento) {
+        this.id = ID_UNICO;
+        this.segmento = segmento;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getSegmento() {
+        return segmento;
+    }
+
+    public void setSegmento(Long segmento) {
+        this.segmento = segmento;
+    }
+}
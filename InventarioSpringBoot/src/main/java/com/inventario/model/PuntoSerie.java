@@ -0,0 +1,116 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Punto de la serie temporal de una categoría: cantidad de productos,
+ * stock, valor (precio x stock) y productos bajo su umbral de reorden.
+ * Los puntos HORA son muestras; los DIA, el promedio de las muestras del
+ * día. La clave primaria (granularidad, inicio, categoria) sirve las
+ * consultas por rango.
+ */
+@Entity
+@Table(name = "series_categoria")
+@IdClass(PuntoSerie.Clave.class)
+public class PuntoSerie {
+
+    public enum Granularidad { HORA, DIA }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 4)
+    private Granularidad granularidad;
+
+    @Id
+    private LocalDateTime inicio;
+
+    @Id
+    @Column(length = 50)
+    private String categoria;
+
+    @Column(nullable = false)
+    private Long productos;
+
+    @Column(nullable = false)
+    private Long stock;
+
+    @Column(nullable = false)
+    private Double valor;
+
+    @Column(name = "stock_bajo", nullable = false)
+    private Long stockBajo;
+
+    // Muestras horarias que promedia (1 para los puntos HORA)
+    @Column(nullable = false)
+    private Integer muestras;
+
+    public PuntoSerie() {}
+
+    public PuntoSerie(Granularidad granularidad, LocalDateTime inicio, String categoria,
+                      long productos, long stock, double valor, long stockBajo, int muestras) {
+        this.granularidad = granularidad;
+        this.inicio = inicio;
+        this.categoria = categoria;
+        this.productos = productos;
+        this.stock = stock;
+        this.valor = valor;
+        this.stockBajo = stockBajo;
+        this.muestras = muestras;
+    }
+
+    public Granularidad getGranularidad() {
+        return granularidad;
+    }
+
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public Long getProductos() {
+        return productos;
+    }
+
+    public Long getStock() {
+        return stock;
+    }
+
+    public Double getValor() {
+        return valor;
+    }
+
+    public Long getStockBajo() {
+        return stockBajo;
+    }
+
+    public Integer getMuestras() {
+        return muestras;
+    }
+
+    public static class Clave implements Serializable {
+
+        private Granularidad granularidad;
+        private LocalDateTime inicio;
+        private String categoria;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave)) return false;
+            Clave otra = (Clave) o;
+            return granularidad == otra.granularidad && Objects.equals(inicio, otra.inicio)
+                    && Objects.equals(categoria, otra.categoria);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(granularidad, inicio, categoria);
+        }
+    }
+}
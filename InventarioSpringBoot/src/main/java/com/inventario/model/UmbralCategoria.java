@@ -0,0 +1,42 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Umbral de reorden de una categoría: se aplica a los productos de la
+ * categoría que no tienen uno propio (Producto.umbralReorden).
+ */
+@Entity
+@Table(name = "umbrales_categoria")
+public class UmbralCategoria {
+
+    @Id
+    @Column(length = 50)
+    private String categoria;
+
+    @Column(nullable = false)
+    private Integer umbral;
+
+    public UmbralCategoria() {}
+
+    public UmbralCategoria(String categoria, Integer umbral) {
+        this.categoria = categoria;
+        this.umbral = umbral;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public Integer getUmbral() {
+        return umbral;
+    }
+
+    public void setUmbral(Integer umbral) {
+        this.umbral = umbral;
+    }
+}
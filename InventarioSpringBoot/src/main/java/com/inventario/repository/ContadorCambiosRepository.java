@@ -0,0 +1,28 @@
+package com.inventario.repository;
+
+import com.inventario.model.ContadorCambios;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ContadorCambiosRepository extends JpaRepository<ContadorCambios, Integer> {
+
+    // Solo desde SecuenciaCambios, en una transacción propia que pide un bloque
+    @Modifying
+    @Query("UPDATE ContadorCambios c SET c.valor = c.valor + :cantidad WHERE c.id = 1")
+    int incrementar(@Param("cantidad") long cantidad);
+
+    @Query("SELECT c.valor FROM ContadorCambios c WHERE c.id = 1")
+    long valor();
+
+    @Modifying
+    @Query("UPDATE ContadorCambios c SET c.bajasPurgadasHasta = :secuencia " +
+           "WHERE c.id = 1 AND c.bajasPurgadasHasta < :secuencia")
+    int registrarPurga(@Param("secuencia") long secuencia);
+
+    @Query("SELECT c.bajasPurgadasHasta FROM ContadorCambios c WHERE c.id = 1")
+    long bajasPurgadasHasta();
+}
@@ -0,0 +1,32 @@
+package com.inventario.repository;
+
+import com.inventario.model.InstantaneaStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InstantaneaStockRepository extends JpaRepository<InstantaneaStock, Long> {
+
+    // Último movimiento incluido en las instantáneas (0 si todavía no hay)
+    @Query("SELECT COALESCE(MAX(s.hastaMovimiento), 0) FROM InstantaneaStock s")
+    long ultimoCorte();
+
+    boolean existsByAperturaTrue();
+
+    boolean existsByProductoIdAndAperturaTrue(Integer productoId);
+
+    // Última instantánea de un producto tomada hasta una fecha
+    Optional<InstantaneaStock> findFirstByProductoIdAndFechaLessThanEqualOrderByHastaMovimientoDesc(
+            Integer productoId, LocalDateTime fecha);
+
+    // Última instantánea de cada producto (idx_inst_producto)
+    @Query("SELECT s FROM InstantaneaStock s WHERE s.productoId IN :ids AND s.hastaMovimiento = " +
+           "(SELECT MAX(s2.hastaMovimiento) FROM InstantaneaStock s2 WHERE s2.productoId = s.productoId)")
+    List<InstantaneaStock> findUltimas(@Param("ids") Collection<Integer> ids);
+}
@@ -0,0 +1,15 @@
+package com.inventario.repository;
+
+import com.inventario.model.MovimientoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MovimientoDiarioRepository extends JpaRepository<MovimientoDiario, MovimientoDiario.Clave> {
+
+    List<MovimientoDiario> findByDiaBetweenOrderByDiaAscCategoriaAscTipoAsc(LocalDate desde, LocalDate hasta);
+
+    List<MovimientoDiario> findByCategoriaAndDiaBetweenOrderByDiaAscTipoAsc(String categoria, LocalDate desde, LocalDate hasta);
+}
@@ -0,0 +1,33 @@
+package com.inventario.repository;
+
+import com.inventario.model.MovimientoStock;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MovimientoStockRepository extends JpaRepository<MovimientoStock, Long> {
+
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM MovimientoStock m")
+    long ultimoId();
+
+    // Suma por producto de los movimientos en (desde, hasta]: solo el tramo desde la última instantánea
+    @Query("SELECT m.productoId AS productoId, SUM(m.cantidad) AS cantidad FROM MovimientoStock m " +
+           "WHERE m.id > :desde AND m.id <= :hasta GROUP BY m.productoId")
+    List<SaldoProducto> sumarPorProducto(@Param("desde") long desde, @Param("hasta") long hasta);
+
+    // Suma de los movimientos de un producto posteriores a una instantánea y hasta una fecha (idx_mov_producto)
+    @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM MovimientoStock m " +
+           "WHERE m.productoId = :productoId AND m.id > :desde AND m.fecha <= :hasta")
+    long sumarDesde(@Param("productoId") Integer productoId, @Param("desde") long desde,
+                    @Param("hasta") LocalDateTime hasta);
+
+    boolean existsByProductoIdAndFechaLessThanEqual(Integer productoId, LocalDateTime fecha);
+
+    // Historial de un producto, del más reciente hacia atrás (keyset sobre el id)
+    List<MovimientoStock> findByProductoIdAndIdLessThanOrderByIdDesc(Integer productoId, Long antesDe, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.inventario.repository;
+
+import com.inventario.model.ProductoBaja;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductoBajaRepository extends JpaRepository<ProductoBaja, Integer> {
+
+    // Bajas posteriores a un cursor (usa idx_baja_secuencia)
+    List<ProductoBaja> findBySecuenciaGreaterThanOrderBySecuenciaAsc(Long secuencia, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(b.secuencia), 0) FROM ProductoBaja b WHERE b.eliminadoEn < :limite")
+    long maxSecuenciaAntesDe(@Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("DELETE FROM ProductoBaja b WHERE b.secuencia <= :secuencia")
+    int purgarHasta(@Param("secuencia") long secuencia);
+}
@@ -1,11 +1,104 @@
 package com.inventario.repository;
 
 import com.inventario.model.Producto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Integer> {
+public interface ProductoRepository extends JpaRepository<Producto, Integer>,
+        JpaSpecificationExecutor<Producto> {
     Optional<Producto> findByCodigo(String codigo);
+
+    // Cuáles de estos códigos ya existen (una sola consulta para todo un lote)
+    @Query("SELECT p.codigo FROM Producto p WHERE p.codigo IN :codigos")
+    List<String> findCodigosExistentes(@Param("codigos") Collection<String> codigos);
+
+    // Ajuste atómico de stock: un solo UPDATE condicional, sin leer antes la fila (sube la versión).
+    // La secuencia se asigna después, con SecuenciaCambios.asignar al final de la transacción.
+    @Modifying
+    @Query("UPDATE Producto p SET p.stock = p.stock + :delta, p.version = p.version + 1, " +
+           "p.actualizadoEn = LOCAL DATETIME " +
+           "WHERE p.id = :id AND p.stock + :delta >= 0 AND p.stock + :delta <= " + Producto.STOCK_MAXIMO)
+    int ajustarStock(@Param("id") Integer id, @Param("delta") int delta);
+
+    // Operaciones masivas: bloquea las filas del lote en orden de id (el estado "anterior" de los eventos)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id IN :ids ORDER BY p.id")
+    List<Producto> bloquearPorIds(@Param("ids") Collection<Integer> ids);
+
+    // Un UPDATE por lote de ids; la secuencia la asigna después SecuenciaCambios.asignar
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.activo = :activo, p.version = p.version + 1, " +
+           "p.actualizadoEn = LOCAL DATETIME WHERE p.id IN :ids")
+    int cambiarActivoLote(@Param("ids") Collection<Integer> ids, @Param("activo") boolean activo);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.categoria = :categoria, p.version = p.version + 1, " +
+           "p.actualizadoEn = LOCAL DATETIME WHERE p.id IN :ids")
+    int cambiarCategoriaLote(@Param("ids") Collection<Integer> ids, @Param("categoria") String categoria);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.precio = ROUND(p.precio * CAST(:factor AS Double), 2), p.version = p.version + 1, " +
+           "p.actualizadoEn = LOCAL DATETIME WHERE p.id IN :ids")
+    int ajustarPrecioLote(@Param("ids") Collection<Integer> ids, @Param("factor") double factor);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Producto p WHERE p.id IN :ids")
+    int eliminarLote(@Param("ids") Collection<Integer> ids);
+
+    // Cambios posteriores a un cursor de sincronización (usa idx_secuencia)
+    List<Producto> findBySecuenciaGreaterThanOrderBySecuenciaAsc(Long secuencia, Pageable pageable);
+
+    // Filas insertadas sin secuencia (datos iniciales, scripts): secuencia = base + id
+    @Modifying
+    @Query("UPDATE Producto p SET p.secuencia = :base + p.id WHERE p.secuencia = 0")
+    int asignarSecuenciaPendiente(@Param("base") long base);
+
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Producto p WHERE p.secuencia = 0")
+    int maxIdSinSecuencia();
+
+    // Recorrido por lotes usando la PK (keyset), sin OFFSET
+    Slice<Producto> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    // Totales globales en una sola consulta
+    @Query("SELECT COUNT(p) AS totalProductos, " +
+           "COALESCE(SUM(p.precio * p.stock), 0) AS valorTotal, " +
+           "COALESCE(SUM(CASE WHEN p.activo = true THEN 1 ELSE 0 END), 0) AS productosActivos " +
+           "FROM Producto p")
+    ResumenInventario resumen();
+
+    // Cantidad, stock y valor por categoría (una fila por categoría)
+    @Query("SELECT p.categoria AS categoria, COUNT(p) AS productos, SUM(p.stock) AS stock, " +
+           "SUM(p.precio * p.stock) AS valor FROM Producto p GROUP BY p.categoria")
+    List<ResumenCategoria> resumenPorCategoria();
+
+    // Top 5 (usan idx_precio / idx_stock)
+    List<Producto> findTop5ByOrderByPrecioDescIdAsc();
+
+    List<Producto> findTop5ByOrderByStockDescIdAsc();
+
+    // Productos bajo su umbral de reorden: el propio, el de su categoría o el global
+    @Query("SELECT p FROM Producto p LEFT JOIN UmbralCategoria u ON u.categoria = p.categoria " +
+           "WHERE p.stock < COALESCE(p.umbralReorden, u.umbral, :porDefecto)")
+    List<Producto> findEnRiesgo(@Param("porDefecto") int porDefecto);
+
+    @Query("SELECT COUNT(p) FROM Producto p LEFT JOIN UmbralCategoria u ON u.categoria = p.categoria " +
+           "WHERE p.stock < COALESCE(p.umbralReorden, u.umbral, :porDefecto)")
+    long contarEnRiesgo(@Param("porDefecto") int porDefecto);
+
+    // Los de una categoría con el umbral indicado (usa idx_categoria)
+    @Query("SELECT p FROM Producto p WHERE p.categoria = :categoria " +
+           "AND p.stock < COALESCE(p.umbralReorden, :umbral)")
+    List<Producto> findEnRiesgoPorCategoria(@Param("categoria") String categoria, @Param("umbral") int umbral);
 }
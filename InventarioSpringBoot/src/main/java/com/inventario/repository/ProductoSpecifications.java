@@ -0,0 +1,42 @@
+package com.inventario.repository;
+
+import com.inventario.model.Producto;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Criterios de búsqueda de productos para consultas paginadas.
+ * Cada criterio devuelve null cuando no aplica, de modo que
+ * Specification.where(...).and(...) lo ignora.
+ */
+public final class ProductoSpecifications {
+
+    private ProductoSpecifications() {}
+
+    // Filtros del listado: texto de búsqueda y categoría
+    public static Specification<Producto> filtros(String buscar, String categoria) {
+        return Specification.where(buscarTexto(buscar)).and(enCategoria(categoria));
+    }
+
+    // Código o nombre contienen el texto (sin distinguir mayúsculas)
+    public static Specification<Producto> buscarTexto(String buscar) {
+        if (buscar == null || buscar.trim().isEmpty()) {
+            return null;
+        }
+        String patron = "%" + escaparLike(buscar.trim().toLowerCase()) + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("codigo")), patron, '\\'),
+                cb.like(cb.lower(root.get("nombre")), patron, '\\'));
+    }
+
+    // Igualdad exacta sobre categoria (usa idx_categoria)
+    public static Specification<Producto> enCategoria(String categoria) {
+        if (categoria == null || categoria.trim().isEmpty() || categoria.equals("Todas")) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("categoria"), categoria);
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
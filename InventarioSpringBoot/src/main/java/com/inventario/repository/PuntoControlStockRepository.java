@@ -0,0 +1,9 @@
+package com.inventario.repository;
+
+import com.inventario.model.PuntoControlStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PuntoControlStockRepository extends JpaRepository<PuntoControlStock, Integer> {
+}
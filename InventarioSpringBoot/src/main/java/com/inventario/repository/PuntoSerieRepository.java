@@ -0,0 +1,40 @@
+package com.inventario.repository;
+
+import com.inventario.model.PuntoSerie;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PuntoSerieRepository extends JpaRepository<PuntoSerie, PuntoSerie.Clave> {
+
+    // Rango de la serie (prefijo de la clave primaria)
+    List<PuntoSerie> findByGranularidadAndInicioBetweenOrderByInicioAscCategoriaAsc(
+            PuntoSerie.Granularidad granularidad, LocalDateTime desde, LocalDateTime hasta);
+
+    List<PuntoSerie> findByGranularidadAndCategoriaAndInicioBetweenOrderByInicioAsc(
+            PuntoSerie.Granularidad granularidad, String categoria, LocalDateTime desde, LocalDateTime hasta);
+
+    boolean existsByGranularidadAndInicio(PuntoSerie.Granularidad granularidad, LocalDateTime inicio);
+
+    @Query("SELECT MIN(s.inicio) FROM PuntoSerie s WHERE s.granularidad = :granularidad")
+    LocalDateTime primero(@Param("granularidad") PuntoSerie.Granularidad granularidad);
+
+    // Primer punto desde una fecha (salta los días sin muestras)
+    @Query("SELECT MIN(s.inicio) FROM PuntoSerie s WHERE s.granularidad = :granularidad AND s.inicio >= :desde")
+    LocalDateTime primeroDesde(@Param("granularidad") PuntoSerie.Granularidad granularidad,
+                               @Param("desde") LocalDateTime desde);
+
+    @Query("SELECT MAX(s.inicio) FROM PuntoSerie s WHERE s.granularidad = :granularidad")
+    LocalDateTime ultimo(@Param("granularidad") PuntoSerie.Granularidad granularidad);
+
+    // Retención: borra los puntos anteriores a una fecha
+    @Modifying
+    @Query("DELETE FROM PuntoSerie s WHERE s.granularidad = :granularidad AND s.inicio < :antes")
+    int borrarAnteriores(@Param("granularidad") PuntoSerie.Granularidad granularidad,
+                         @Param("antes") LocalDateTime antes);
+}
@@ -0,0 +1,16 @@
+package com.inventario.repository;
+
+/**
+ * Proyección con la cantidad de productos, el stock total y el valor
+ * (precio por stock) de una categoría.
+ */
+public interface ResumenCategoria {
+
+    String getCategoria();
+
+    Long getProductos();
+
+    Long getStock();
+
+    Double getValor();
+}
@@ -0,0 +1,13 @@
+package com.inventario.repository;
+
+/**
+ * Proyección con los totales globales del inventario calculados en SQL.
+ */
+public interface ResumenInventario {
+
+    Long getTotalProductos();
+
+    Double getValorTotal();
+
+    Long getProductosActivos();
+}
@@ -0,0 +1,11 @@
+package com.inventario.repository;
+
+/**
+ * Proyección con la suma de los movimientos de un producto en un tramo del libro.
+ */
+public interface SaldoProducto {
+
+    Integer getProductoId();
+
+    Long getCantidad();
+}
@@ -0,0 +1,9 @@
+package com.inventario.repository;
+
+import com.inventario.model.UmbralCategoria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UmbralCategoriaRepository extends JpaRepository<UmbralCategoria, String> {
+}
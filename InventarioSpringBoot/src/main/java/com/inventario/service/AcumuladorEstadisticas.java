@@ -0,0 +1,162 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Todas las estadísticas del dashboard en una sola pasada sobre una lista
+ * de productos.
+ *
+ * Cada producto se lee una vez (precio y stock se desempaquetan una sola
+ * vez) y se acumula en contadores primitivos, un long[] por categoría y
+ * dos top-5 acotados, sin ordenar la lista. El stock bajo y crítico no se
+ * calculan aquí: salen de AlertasStock. Como Collector tiene
+ * combinador: a partir de umbralParalelo filas el stream es paralelo y
+ * el fork/join del pool común reparte la lista entre los núcleos; cada
+ * tarea acumula su tramo y los resultados parciales se combinan.
+ */
+public final class AcumuladorEstadisticas {
+
+    private static final String SIN_CATEGORIA = "Sin categoría";
+
+    static final Comparator<Producto> POR_PRECIO_DESC = Comparator
+            .comparing(Producto::getPrecio, Comparator.reverseOrder())
+            .thenComparing(Producto::getId);
+
+    static final Comparator<Producto> POR_STOCK_DESC = Comparator
+            .comparing(Producto::getStock, Comparator.reverseOrder())
+            .thenComparing(Producto::getId);
+
+    private long total;
+    private double valorTotal;
+    private long activos;
+
+    // Por categoría: [0] = cantidad de productos, [1] = suma de stock
+    private final Map<String, long[]> porCategoria = new HashMap<>();
+
+    private final TopAcotado masCaros = new TopAcotado(AgregadosInventario.TOP_K, POR_PRECIO_DESC);
+    private final TopAcotado masStock = new TopAcotado(AgregadosInventario.TOP_K, POR_STOCK_DESC);
+
+    // Calcular sobre la lista, en paralelo si tiene al menos umbralParalelo elementos
+    public static Map<String, Object> calcular(List<Producto> productos, int umbralParalelo) {
+        Stream<Producto> stream = productos.size() >= umbralParalelo
+                ? productos.parallelStream()
+                : productos.stream();
+        return stream.collect(collector());
+    }
+
+    public static Collector<Producto, AcumuladorEstadisticas, Map<String, Object>> collector() {
+        return Collector.of(AcumuladorEstadisticas::new,
+                AcumuladorEstadisticas::agregar,
+                AcumuladorEstadisticas::combinar,
+                AcumuladorEstadisticas::resultado);
+    }
+
+    void agregar(Producto p) {
+        double precio = p.getPrecio();
+        int stock = p.getStock();
+
+        total++;
+        valorTotal += precio * stock;
+        if (Boolean.TRUE.equals(p.getActivo())) {
+            activos++;
+        }
+
+        long[] valores = porCategoria.computeIfAbsent(categoria(p), c -> new long[2]);
+        valores[0]++;
+        valores[1] += stock;
+
+        masCaros.ofrecer(p);
+        masStock.ofrecer(p);
+    }
+
+    AcumuladorEstadisticas combinar(AcumuladorEstadisticas otro) {
+        total += otro.total;
+        valorTotal += otro.valorTotal;
+        activos += otro.activos;
+        otro.porCategoria.forEach((categoria, valores) -> {
+            long[] propios = porCategoria.computeIfAbsent(categoria, c -> new long[2]);
+            propios[0] += valores[0];
+            propios[1] += valores[1];
+        });
+        masCaros.combinar(otro.masCaros);
+        masStock.combinar(otro.masStock);
+        return this;
+    }
+
+    Map<String, Object> resultado() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalProductos", (int) total);
+        stats.put("valorTotal", valorTotal);
+        stats.put("productosActivos", activos);
+
+        Map<String, Long> productosPorCategoria = new HashMap<>();
+        Map<String, Integer> stockPorCategoria = new HashMap<>();
+        porCategoria.forEach((categoria, valores) -> {
+            productosPorCategoria.put(categoria, valores[0]);
+            stockPorCategoria.put(categoria, (int) valores[1]);
+        });
+        stats.put("productosPorCategoria", productosPorCategoria);
+        stats.put("stockPorCategoria", stockPorCategoria);
+
+        stats.put("productosMasCaros", masCaros.ordenados());
+        stats.put("productosMasStock", masStock.ordenados());
+        return stats;
+    }
+
+    private static String categoria(Producto p) {
+        return p.getCategoria() != null ? p.getCategoria() : SIN_CATEGORIA;
+    }
+
+    /**
+     * Los K mejores según el comparador, en un arreglo ordenado (el mejor
+     * primero). Con K = 5 la inserción ordenada es más barata que un heap y
+     * la mayoría de los productos se descartan con una sola comparación
+     * contra el último.
+     */
+    private static final class TopAcotado {
+
+        private final Comparator<Producto> orden;
+        private final Producto[] elementos;
+        private int tamano;
+
+        TopAcotado(int k, Comparator<Producto> orden) {
+            this.orden = orden;
+            this.elementos = new Producto[k];
+        }
+
+        void ofrecer(Producto p) {
+            if (tamano == elementos.length) {
+                if (orden.compare(p, elementos[tamano - 1]) >= 0) {
+                    return;
+                }
+                tamano--;
+            }
+            int i = tamano;
+            while (i > 0 && orden.compare(p, elementos[i - 1]) < 0) {
+                elementos[i] = elementos[i - 1];
+                i--;
+            }
+            elementos[i] = p;
+            tamano++;
+        }
+
+        void combinar(TopAcotado otro) {
+            for (int i = 0; i < otro.tamano; i++) {
+                ofrecer(otro.elementos[i]);
+            }
+        }
+
+        List<Producto> ordenados() {
+            return new ArrayList<>(Arrays.asList(elementos).subList(0, tamano));
+        }
+    }
+}
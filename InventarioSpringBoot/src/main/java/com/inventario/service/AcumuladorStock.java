@@ -0,0 +1,450 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.model.PuntoControlStock;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.PuntoControlStockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reservas de stock write-behind para SKUs muy concurridos.
+ *
+ * Cada producto reservado tiene una cuenta en memoria con el stock
+ * disponible (stock en BD + movimientos aún no volcados); la reserva es un
+ * CAS sobre esa cuenta, sin bloqueo de fila en la base de datos. Cada
+ * movimiento confirmado queda antes en el journal local. Cada
+ * inventario.stock.write-behind.intervalo-ms (o al llegar a umbral-registros)
+ * se cierra el segmento del journal y los deltas acumulados por producto se
+ * aplican con un UPDATE condicional por SKU, junto con el punto de control,
+ * en una sola transacción. Al arrancar se reaplican los segmentos que
+ * quedaron después del último punto de control y sus movimientos se anotan
+ * en el LibroMovimientos.
+ *
+ * Cada cuenta guarda además, en memoria, quién y cuándo hizo cada reserva
+ * aún no volcada; el evento del volcado las lleva para que el libro anote
+ * una fila por reserva con su usuario. El journal solo guarda (id, delta):
+ * los segmentos reaplicados al arrancar quedan en el libro como "sistema".
+ *
+ * Mientras está habilitado, todos los cambios de stock pasan por aquí
+ * (ProductoService.ajustarStock y el stock de actualizar también): si
+ * otra ruta escribiera el stock directo en la BD, el UPDATE condicional
+ * del volcado podría fallar y perder reservas ya confirmadas. Un movimiento
+ * rechazado al volcar se registra como error y en la métrica
+ * inventario.stock.write-behind.rechazados.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "inventario.stock.write-behind.habilitado", havingValue = "true")
+public class AcumuladorStock {
+
+    private static final Logger log = LoggerFactory.getLogger(AcumuladorStock.class);
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Autowired
+    private PuntoControlStockRepository puntoControlRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SecuenciaCambios secuencias;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private LibroMovimientos libro;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    @Value("${inventario.stock.write-behind.directorio:./data/stock-journal}")
+    private String directorio;
+
+    @Value("${inventario.stock.write-behind.fsync-por-escritura:false}")
+    private boolean fsyncPorEscritura;
+
+    @Value("${inventario.stock.write-behind.umbral-registros:5000}")
+    private int umbralRegistros;
+
+    private final ConcurrentHashMap<Integer, Cuenta> cuentas = new ConcurrentHashMap<>();
+    private final ReentrantLock volcado = new ReentrantLock();
+    private JournalStock journal;
+    private Counter rechazados;
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        rechazados = registry.counter("inventario.stock.write-behind.rechazados");
+        journal = new JournalStock(Paths.get(directorio), fsyncPorEscritura);
+        journal.abrir(recuperar() + 1);
+    }
+
+    @PreDestroy
+    public void detener() throws IOException {
+        volcar();
+        synchronized (journal) {
+            journal.cerrar();
+        }
+    }
+
+    // Reservar (delta < 0) o devolver (delta > 0) stock de uno o varios productos, todo o nada
+    public Map<Integer, Integer> reservar(Map<Integer, Integer> deltas) throws Exception {
+        return reservar(deltas, false);
+    }
+
+    private Map<Integer, Integer> reservar(Map<Integer, Integer> deltas, boolean ajuste) throws Exception {
+        String usuario = LibroMovimientos.usuarioActual();
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(deltas.keySet()));
+        int[] productoIds = ids.stream().mapToInt(Integer::intValue).toArray();
+        int[] valores = ids.stream().mapToInt(deltas::get).toArray();
+
+        while (true) {
+            List<Cuenta> tomadas = new ArrayList<>(ids.size());
+            for (int i = 0; i < productoIds.length; i++) {
+                Cuenta cuenta = cuenta(productoIds[i]);
+                if (!cuenta.reservar(valores[i])) {
+                    deshacer(tomadas, valores);
+                    throw new StockInsuficienteException(productoIds[i]);
+                }
+                tomadas.add(cuenta);
+            }
+
+            Map<Integer, Integer> disponibles = new LinkedHashMap<>();
+            int registros;
+            synchronized (journal) {
+                // Una cuenta desalojada entre el CAS y este punto ya no se volcará: reintentar
+                if (tomadas.stream().anyMatch(c -> !c.vigente)) {
+                    deshacer(tomadas, valores);
+                    continue;
+                }
+                try {
+                    journal.escribir(productoIds, valores);
+                } catch (RuntimeException e) {
+                    deshacer(tomadas, valores);
+                    throw e;
+                }
+                LocalDateTime fecha = LocalDateTime.now();
+                for (int i = 0; i < tomadas.size(); i++) {
+                    Cuenta cuenta = tomadas.get(i);
+                    cuenta.pendiente += valores[i];
+                    cuenta.detalles.add(new ProductoEvento.Detalle(valores[i], usuario, fecha, ajuste));
+                    cuenta.tocada = true;
+                    disponibles.put(cuenta.id, cuenta.disponible.get());
+                }
+                registros = journal.registros();
+            }
+            if (registros >= umbralRegistros) {
+                taskExecutor.execute(this::volcar);
+            }
+            return disponibles;
+        }
+    }
+
+    /**
+     * Fija el stock visible de un producto (formulario de edición): el valor
+     * absoluto se convierte en un movimiento sobre el disponible actual, así
+     * las reservas concurrentes ya confirmadas se conservan.
+     */
+    public int fijar(Integer id, int stock) throws Exception {
+        int delta = stock - cuenta(id).disponible.get();
+        if (delta == 0) {
+            return stock;
+        }
+        return reservar(Map.of(id, delta), true).get(id);
+    }
+
+    // Stock visible de un producto (incluye movimientos aún no volcados) o null si no hay cuenta
+    public Integer stockDisponible(Integer id) {
+        Cuenta cuenta = cuentas.get(id);
+        return cuenta != null && cuenta.vigente ? cuenta.disponible.get() : null;
+    }
+
+    // Copia del producto con el stock visible, para las lecturas del listado
+    public Producto conStockDisponible(Producto p) {
+        Integer disponible = stockDisponible(p.getId());
+        if (disponible == null) {
+            return p;
+        }
+        Producto copia = p.copiar();
+        copia.setStock(disponible);
+        return copia;
+    }
+
+    @Scheduled(fixedDelayString = "${inventario.stock.write-behind.intervalo-ms:200}")
+    public void volcar() {
+        if (!volcado.tryLock()) {
+            return; // ya hay un volcado en curso
+        }
+        try {
+            long segmento;
+            Map<Integer, Integer> deltas = new HashMap<>();
+            Map<Integer, List<ProductoEvento.Detalle>> detalles = new HashMap<>();
+            synchronized (journal) {
+                // También las cuentas con neto 0 (entrada y salida iguales): sus reservas van al libro
+                for (Cuenta cuenta : cuentas.values()) {
+                    if (cuenta.pendiente != 0 || !cuenta.detalles.isEmpty()) {
+                        deltas.put(cuenta.id, cuenta.pendiente);
+                        detalles.put(cuenta.id, cuenta.detalles);
+                        cuenta.pendiente = 0;
+                        cuenta.detalles = new ArrayList<>();
+                    }
+                }
+                // Sin registros nuevos pero con pendientes: reintento de un volcado fallido
+                if (journal.registros() > 0 || !deltas.isEmpty()) {
+                    segmento = journal.rotar();
+                } else {
+                    segmento = -1;
+                }
+                desalojarInactivas();
+            }
+            if (segmento < 0) {
+                return;
+            }
+
+            Volcado resultado;
+            try {
+                resultado = aplicar(segmento, deltas);
+            } catch (RuntimeException e) {
+                // El segmento sigue en disco; los deltas vuelven a pendientes y salen en el próximo volcado,
+                // aunque no lleguen reservas nuevas
+                synchronized (journal) {
+                    deltas.forEach((id, delta) -> {
+                        Cuenta cuenta = cuentas.get(id);
+                        if (cuenta != null) {
+                            cuenta.pendiente += delta;
+                            List<ProductoEvento.Detalle> anteriores = detalles.get(id);
+                            anteriores.addAll(cuenta.detalles);
+                            cuenta.detalles = anteriores;
+                        }
+                    });
+                }
+                log.error("No se pudo volcar el segmento {} del journal de stock, se reintentará", segmento, e);
+                return;
+            }
+            borrarHasta(segmento);
+            resincronizar(deltas, detalles, resultado);
+        } catch (IOException e) {
+            log.error("Error de E/S en el journal de stock", e);
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    // Reaplica los segmentos posteriores al último punto de control; devuelve el último segmento visto
+    private long recuperar() throws IOException {
+        long puntoControl = puntoControlRepository.findById(PuntoControlStock.ID_UNICO)
+                .map(PuntoControlStock::getSegmento)
+                .orElse(0L);
+        long ultimo = puntoControl;
+        for (Long segmento : journal.segmentos()) {
+            if (segmento > puntoControl) {
+                Map<Integer, Integer> deltas = journal.leer(segmento);
+                log.info("Reaplicando segmento {} del journal de stock ({} productos)", segmento, deltas.size());
+                Volcado resultado = aplicar(segmento, deltas);
+                // Todavía no hay listeners que reciban eventos (y los agregados se arman después desde la BD):
+                // los movimientos reaplicados van directo al libro
+                deltas.forEach((id, delta) -> {
+                    ProductoEvento evento = movimiento(id, delta, Collections.emptyList(), resultado);
+                    if (evento != null) {
+                        libro.anotar(evento);
+                    }
+                });
+            }
+            journal.borrar(segmento);
+            ultimo = Math.max(ultimo, segmento);
+        }
+        return ultimo;
+    }
+
+    private Volcado aplicar(long segmento, Map<Integer, Integer> deltas) {
+        return transactionTemplate.execute(status -> {
+            Volcado resultado = new Volcado();
+            List<Integer> aplicados = new ArrayList<>(deltas.size());
+            for (Integer id : new TreeSet<>(deltas.keySet())) {
+                int delta = deltas.get(id);
+                if (delta == 0) {
+                    continue;
+                }
+                if (repository.ajustarStock(id, delta) == 0) {
+                    rechazar(id, delta);
+                    resultado.rechazados.add(id);
+                } else {
+                    aplicados.add(id);
+                }
+            }
+            puntoControlRepository.save(new PuntoControlStock(segmento));
+            // Un solo bloque de secuencias por volcado, al final
+            secuencias.asignar(aplicados);
+            repository.findAllById(deltas.keySet()).forEach(p -> resultado.actuales.put(p.getId(), p));
+            return resultado;
+        });
+    }
+
+    // Un producto eliminado se lleva sus movimientos; cualquier otro rechazo son reservas confirmadas perdidas
+    private void rechazar(Integer id, int delta) {
+        if (!repository.existsById(id)) {
+            log.warn("Movimientos de stock descartados al volcar: producto {} eliminado (delta {})", id, delta);
+            return;
+        }
+        rechazados.increment();
+        log.error("Movimiento de stock rechazado al volcar, el stock en BD no lo admite: producto {} delta {}. " +
+                  "Reservas ya confirmadas no quedaron registradas; revisar el producto", id, delta);
+    }
+
+    /**
+     * Ajusta cada cuenta volcada al stock real de la BD. Solo suma la
+     * diferencia (cambios hechos por otras rutas o deltas rechazados), así no
+     * pisa reservas concurrentes que ya movieron el disponible.
+     */
+    private void resincronizar(Map<Integer, Integer> deltas, Map<Integer, List<ProductoEvento.Detalle>> detalles,
+                               Volcado resultado) {
+        deltas.forEach((id, delta) -> {
+            Cuenta cuenta = cuentas.get(id);
+            Producto actual = resultado.actuales.get(id);
+            if (actual == null) {
+                // Producto eliminado
+                synchronized (journal) {
+                    if (cuenta != null) {
+                        cuenta.vigente = false;
+                        cuentas.remove(id);
+                    }
+                }
+                return;
+            }
+            if (cuenta != null) {
+                int correccion = actual.getStock() - cuenta.base - delta;
+                cuenta.base = actual.getStock();
+                if (correccion != 0) {
+                    cuenta.disponible.addAndGet(correccion);
+                }
+            }
+            ProductoEvento evento = movimiento(id, delta, detalles.get(id), resultado);
+            if (evento == null) {
+                return;
+            }
+            if (delta != 0) {
+                eventos.publishEvent(evento);
+            } else {
+                // Neto 0: el stock no cambió, solo el libro tiene algo que anotar
+                libro.anotar(evento);
+            }
+        });
+    }
+
+    // Evento del movimiento volcado de un producto; null si no hubo cambio ni reservas, o fue rechazado
+    private static ProductoEvento movimiento(Integer id, int delta, List<ProductoEvento.Detalle> detalles,
+                                             Volcado resultado) {
+        Producto actual = resultado.actuales.get(id);
+        if (actual == null || (delta == 0 && detalles.isEmpty()) || resultado.rechazados.contains(id)) {
+            return null;
+        }
+        Producto anterior = actual.copiar();
+        anterior.setStock(actual.getStock() - delta);
+        return detalles.isEmpty() ? ProductoEvento.movimiento(anterior, actual)
+                : ProductoEvento.movimiento(anterior, actual, detalles);
+    }
+
+    // Bajo el lock del journal: quita las cuentas sin movimientos desde el último volcado
+    private void desalojarInactivas() {
+        Iterator<Cuenta> it = cuentas.values().iterator();
+        while (it.hasNext()) {
+            Cuenta cuenta = it.next();
+            if (cuenta.pendiente == 0 && cuenta.detalles.isEmpty() && !cuenta.tocada) {
+                cuenta.vigente = false;
+                it.remove();
+            } else {
+                cuenta.tocada = false;
+            }
+        }
+    }
+
+    private void borrarHasta(long segmento) throws IOException {
+        for (Long numero : journal.segmentos()) {
+            if (numero <= segmento) {
+                journal.borrar(numero);
+            }
+        }
+    }
+
+    private Cuenta cuenta(Integer id) throws ProductoNoEncontradoException {
+        Cuenta cuenta = cuentas.get(id);
+        if (cuenta != null && cuenta.vigente) {
+            return cuenta;
+        }
+        Producto p = repository.findById(id).orElseThrow(() -> new ProductoNoEncontradoException(id));
+        Cuenta nueva = new Cuenta(id, p.getStock());
+        Cuenta existente = cuentas.putIfAbsent(id, nueva);
+        return existente != null ? existente : nueva;
+    }
+
+    private static void deshacer(List<Cuenta> tomadas, int[] valores) {
+        for (int i = 0; i < tomadas.size(); i++) {
+            tomadas.get(i).disponible.addAndGet(-valores[i]);
+        }
+    }
+
+    private static final class Cuenta {
+
+        private final int id;
+        private final AtomicInteger disponible;
+        private int base;            // stock en BD en la última sincronización (solo el volcado)
+        private int pendiente;       // bajo el lock del journal
+        private List<ProductoEvento.Detalle> detalles = new ArrayList<>(); // bajo el lock del journal
+        private boolean tocada;      // bajo el lock del journal
+        private volatile boolean vigente = true;
+
+        Cuenta(int id, int stock) {
+            this.id = id;
+            this.base = stock;
+            this.disponible = new AtomicInteger(stock);
+        }
+
+        boolean reservar(int delta) {
+            while (true) {
+                int actual = disponible.get();
+                long nuevo = (long) actual + delta;
+                if ((delta < 0 && nuevo < 0) || (delta > 0 && nuevo > Producto.STOCK_MAXIMO)) {
+                    return false;
+                }
+                if (disponible.compareAndSet(actual, (int) nuevo)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private static final class Volcado {
+
+        private final Map<Integer, Producto> actuales = new HashMap<>();
+        private final Set<Integer> rechazados = new HashSet<>();
+    }
+}
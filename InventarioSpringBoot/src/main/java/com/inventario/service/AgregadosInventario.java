@@ -0,0 +1,483 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.ResumenCategoria;
+import com.inventario.repository.ResumenInventario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.*;
+
+/**
+ * Estadísticas del dashboard mantenidas de forma incremental.
+ *
+ * Se construyen una vez al arrancar y luego se actualizan con cada
+ * ProductoEvento, así que leerlas cuesta O(categorías + K) sin importar
+ * el tamaño del catálogo. Un job periódico compara los contadores globales
+ * y por categoría con la base de datos y reconstruye todo si no coinciden
+ * (por ejemplo, escrituras hechas directamente en la tabla sin pasar por
+ * ProductoService). También compara los top-5: con eventos concurrentes
+ * aplicados en otro orden, un producto que salió del top puede no volver a
+ * entrar; si difieren se reemplazan por los de la base de datos. El
+ * stock bajo y crítico los aporta AlertasStock (umbrales por producto y
+ * categoría).
+ *
+ * La reconstrucción recorre la tabla sin tomar el lock: carga un estado
+ * nuevo mientras los eventos se siguen aplicando al actual y se guardan, y
+ * al final reaplica sobre el nuevo los que el recorrido no llegó a ver
+ * (por versión de cada producto) y lo reemplaza en un paso corto.
+ *
+ * Solo existe con inventario.estadisticas.modo=incremental (el valor por
+ * defecto); en los otros modos no se carga el catálogo ni se escuchan
+ * eventos, y EstadisticasService responde con consultas agregadas.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "inventario.estadisticas.modo", havingValue = "incremental", matchIfMissing = true)
+public class AgregadosInventario {
+
+    private static final Logger log = LoggerFactory.getLogger(AgregadosInventario.class);
+
+    static final int TOP_K = 5;
+    private static final int LOTE_CARGA = 1000;
+    static final String SIN_CATEGORIA = "Sin categoría";
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Autowired
+    private AlertasStock alertas;
+
+    // Todo lo que sigue, bajo el lock de this
+    private Estado estado = new Estado();
+    private boolean inicializado;
+
+    // Eventos recibidos durante una reconstrucción; null si no hay ninguna en curso
+    private List<ProductoEvento> durante;
+
+    // Eventos aplicados: la reconciliación solo compara si no cambió mientras leía la base de datos
+    private long aplicados;
+
+    // La reconciliación anterior tampoco coincidió
+    private boolean desalineado;
+
+    // Una reconstrucción a la vez
+    private final Object reconstruccion = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconstruir();
+    }
+
+    // Aplicar la diferencia de una escritura de ProductoService
+    @EventListener
+    public synchronized void aplicar(ProductoEvento evento) {
+        if (durante != null) {
+            durante.add(evento);
+        }
+        if (!inicializado) {
+            return; // la carga inicial ya verá el cambio
+        }
+        estado.aplicar(evento.getAnterior(), evento.getActual());
+        aplicados++;
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        if (!inicializadoAhora()) {
+            reconstruir();
+        }
+        synchronized (this) {
+            if (estado.masCaros.incompleto) {
+                estado.masCaros.reemplazar(consultarTop("precio"));
+            }
+            if (estado.masStock.incompleto) {
+                estado.masStock.reemplazar(consultarTop("stock"));
+            }
+
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("totalProductos", (int) estado.totalProductos);
+            stats.put("valorTotal", estado.valorTotal);
+            stats.put("productosActivos", estado.productosActivos);
+            stats.put("stockBajo", alertas.cantidadEnRiesgo());
+
+            Map<String, Long> productosPorCategoria = new HashMap<>();
+            Map<String, Integer> stockPorCategoria = new HashMap<>();
+            estado.porCategoria.forEach((categoria, valores) -> {
+                productosPorCategoria.put(categoria, valores[0]);
+                stockPorCategoria.put(categoria, (int) valores[1]);
+            });
+            stats.put("productosPorCategoria", productosPorCategoria);
+            stats.put("stockPorCategoria", stockPorCategoria);
+
+            stats.put("productosMasCaros", estado.masCaros.ordenados());
+            stats.put("productosMasStock", estado.masStock.ordenados());
+
+            stats.put("productosStockCritico", alertas.criticos());
+
+            return stats;
+        }
+    }
+
+    // Por categoría: [0] = cantidad de productos, [1] = suma de stock, [2] = valor (para las series temporales)
+    public Map<String, double[]> resumenPorCategoria() {
+        if (!inicializadoAhora()) {
+            reconstruir();
+        }
+        synchronized (this) {
+            Map<String, double[]> resumen = new HashMap<>();
+            estado.porCategoria.forEach((categoria, valores) -> resumen.put(categoria,
+                    new double[]{valores[0], valores[1], estado.valorPorCategoria.getOrDefault(categoria, 0.0)}));
+            return resumen;
+        }
+    }
+
+    private synchronized boolean inicializadoAhora() {
+        return inicializado;
+    }
+
+    /**
+     * Reconciliación periódica contra la base de datos. Las consultas no ven
+     * un corte consistente con la memoria: si se aplicó algún evento mientras
+     * se leían, no se compara. Como un commit se publica un instante después,
+     * hace falta que no coincida dos veces seguidas para reconstruir.
+     */
+    @Scheduled(fixedDelayString = "${inventario.estadisticas.reconciliacion-ms:300000}",
+               initialDelayString = "${inventario.estadisticas.reconciliacion-ms:300000}")
+    public void reconciliar() {
+        long aplicadosAntes;
+        synchronized (this) {
+            if (!inicializado || durante != null) {
+                return;
+            }
+            aplicadosAntes = aplicados;
+        }
+        ResumenInventario bd = repository.resumen();
+        Map<String, long[]> categoriasBd = new HashMap<>();
+        Map<String, Double> valoresBd = new HashMap<>();
+        for (ResumenCategoria fila : repository.resumenPorCategoria()) {
+            String categoria = fila.getCategoria() != null ? fila.getCategoria() : SIN_CATEGORIA;
+            long[] valores = categoriasBd.computeIfAbsent(categoria, c -> new long[2]);
+            valores[0] += fila.getProductos();
+            valores[1] += fila.getStock() != null ? fila.getStock() : 0;
+            valoresBd.merge(categoria, fila.getValor() != null ? fila.getValor() : 0.0, Double::sum);
+        }
+        List<Producto> carosBd = repository.findTop5ByOrderByPrecioDescIdAsc();
+        List<Producto> stockBd = repository.findTop5ByOrderByStockDescIdAsc();
+
+        long totalMemoria;
+        double valorMemoria;
+        int categoriasMemoria;
+        synchronized (this) {
+            if (aplicados != aplicadosAntes || durante != null) {
+                log.debug("Cambios del catálogo durante la reconciliación de agregados, se compara en la próxima");
+                return;
+            }
+            boolean coincide = bd.getTotalProductos() == estado.totalProductos
+                    && bd.getProductosActivos() == estado.productosActivos
+                    && parecidos(bd.getValorTotal(), estado.valorTotal)
+                    && coincidenCategorias(categoriasBd, valoresBd);
+            if (coincide) {
+                desalineado = false;
+                // Los contadores están bien: un top-5 desalineado se corrige sin recorrer la tabla
+                corregirTop(estado.masCaros, carosBd, "más caros");
+                corregirTop(estado.masStock, stockBd, "más stock");
+                return;
+            }
+            if (!desalineado) {
+                desalineado = true;
+                log.debug("Agregados del dashboard distintos de la base de datos, se confirma en la próxima reconciliación");
+                return;
+            }
+            desalineado = false;
+            totalMemoria = estado.totalProductos;
+            valorMemoria = estado.valorTotal;
+            categoriasMemoria = estado.porCategoria.size();
+        }
+        log.warn("Agregados del dashboard desalineados con la base de datos " +
+                 "(bd: total={}, valor={}, categorías={}; memoria: total={}, valor={}, categorías={}), reconstruyendo",
+                 bd.getTotalProductos(), bd.getValorTotal(), categoriasBd.size(),
+                 totalMemoria, valorMemoria, categoriasMemoria);
+        reconstruir();
+    }
+
+    private boolean coincidenCategorias(Map<String, long[]> categoriasBd, Map<String, Double> valoresBd) {
+        if (categoriasBd.size() != estado.porCategoria.size()) {
+            return false;
+        }
+        for (Map.Entry<String, long[]> entrada : categoriasBd.entrySet()) {
+            long[] memoria = estado.porCategoria.get(entrada.getKey());
+            if (memoria == null || !Arrays.equals(memoria, entrada.getValue())
+                    || !parecidos(valoresBd.get(entrada.getKey()),
+                                  estado.valorPorCategoria.getOrDefault(entrada.getKey(), 0.0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Un top marcado incompleto ya se vuelve a consultar en la próxima lectura
+    private void corregirTop(TopK top, List<Producto> bd, String nombre) {
+        if (top.incompleto) {
+            return;
+        }
+        List<Integer> idsMemoria = top.ordenados().stream().map(Producto::getId).toList();
+        List<Integer> idsBd = bd.stream().map(Producto::getId).toList();
+        if (!idsMemoria.equals(idsBd)) {
+            log.warn("Top de productos con {} desalineado con la base de datos (bd: {}; memoria: {}), reemplazando",
+                     nombre, idsBd, idsMemoria);
+            top.reemplazar(bd);
+        }
+    }
+
+    // Sumas de precio * stock: iguales salvo el redondeo acumulado
+    private static boolean parecidos(double bd, double memoria) {
+        return Math.abs(bd - memoria) <= 1e-6 * Math.max(1.0, Math.abs(memoria));
+    }
+
+    // Recorre la tabla por lotes (keyset sobre la PK) sin el lock y reemplaza el estado al final
+    public void reconstruir() {
+        synchronized (reconstruccion) {
+            synchronized (this) {
+                durante = new ArrayList<>();
+            }
+            Estado nuevo = new Estado();
+            VersionesVistas vistas = new VersionesVistas();
+            try {
+                int ultimoId = 0;
+                Slice<Producto> lote;
+                do {
+                    lote = repository.findByIdGreaterThanOrderByIdAsc(ultimoId, PageRequest.of(0, LOTE_CARGA));
+                    for (Producto p : lote) {
+                        nuevo.cargar(p);
+                        vistas.agregar(p.getId(), version(p));
+                        ultimoId = p.getId();
+                    }
+                } while (lote.hasNext());
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    durante = null;
+                }
+                throw e;
+            }
+
+            int reaplicados;
+            synchronized (this) {
+                reaplicados = reaplicar(nuevo, durante, vistas);
+                durante = null;
+                estado = nuevo;
+                inicializado = true;
+                desalineado = false;
+            }
+            log.debug("Agregados del dashboard construidos: {} productos, {} categorías, {} eventos reaplicados",
+                      nuevo.totalProductos, nuevo.porCategoria.size(), reaplicados);
+        }
+    }
+
+    /**
+     * Eventos que llegaron durante el recorrido. El recorrido vio cada
+     * producto en algún momento: un evento se aplica solo si parte de lo que
+     * se contó (alta de un producto no visto, cambio a una versión mayor que
+     * la vista, baja de uno contado). Por producto se recorren en orden de
+     * versión, con la baja al final.
+     */
+    static int reaplicar(Estado nuevo, List<ProductoEvento> eventos, VersionesVistas vistas) {
+        List<ProductoEvento> ordenados = new ArrayList<>(eventos);
+        ordenados.sort(Comparator.comparing(AgregadosInventario::idEvento)
+                .thenComparingLong(AgregadosInventario::versionEvento));
+        Map<Integer, Long> conocidas = new HashMap<>();
+        int reaplicados = 0;
+        for (ProductoEvento evento : ordenados) {
+            Integer id = idEvento(evento);
+            Long conocida = conocidas.containsKey(id) ? conocidas.get(id) : vistas.version(id);
+            boolean aplica;
+            if (evento.getActual() == null) {
+                aplica = conocida != null;
+            } else if (evento.getAnterior() == null) {
+                aplica = conocida == null;
+            } else {
+                aplica = conocida != null && conocida < version(evento.getActual());
+            }
+            if (aplica) {
+                nuevo.aplicar(evento.getAnterior(), evento.getActual());
+                conocidas.put(id, evento.getActual() != null ? version(evento.getActual()) : null);
+                reaplicados++;
+            }
+        }
+        return reaplicados;
+    }
+
+    private static Integer idEvento(ProductoEvento evento) {
+        return evento.getActual() != null ? evento.getActual().getId() : evento.getAnterior().getId();
+    }
+
+    private static long versionEvento(ProductoEvento evento) {
+        return evento.getActual() != null ? version(evento.getActual()) : Long.MAX_VALUE;
+    }
+
+    private static long version(Producto p) {
+        return p.getVersion() != null ? p.getVersion() : 0L;
+    }
+
+    /**
+     * Contadores, sumas por categoría y top-K de un momento del catálogo. El
+     * que está en uso se modifica bajo el lock del componente; uno nuevo se
+     * carga sin lock hasta que lo reemplaza.
+     */
+    static final class Estado {
+
+        // Contadores globales
+        long totalProductos;
+        double valorTotal;
+        long productosActivos;
+
+        // Por categoría: [0] = cantidad de productos, [1] = suma de stock
+        final Map<String, long[]> porCategoria = new HashMap<>();
+        final Map<String, Double> valorPorCategoria = new HashMap<>();
+
+        final TopK masCaros = new TopK(TOP_K, Comparator
+                .comparing(Producto::getPrecio, Comparator.reverseOrder())
+                .thenComparing(Producto::getId));
+
+        final TopK masStock = new TopK(TOP_K, Comparator
+                .comparing(Producto::getStock, Comparator.reverseOrder())
+                .thenComparing(Producto::getId));
+
+        void cargar(Producto p) {
+            sumar(p, 1);
+            masCaros.ofrecer(p);
+            masStock.ofrecer(p);
+        }
+
+        void aplicar(Producto anterior, Producto actual) {
+            if (anterior != null) {
+                sumar(anterior, -1);
+            }
+            if (actual != null) {
+                sumar(actual, 1);
+            }
+            masCaros.aplicar(anterior, actual);
+            masStock.aplicar(anterior, actual);
+        }
+
+        private void sumar(Producto p, int signo) {
+            totalProductos += signo;
+            // Sin productos el valor es exactamente 0 (las restas de precios con decimales dejan residuos)
+            valorTotal = totalProductos == 0 ? 0 : valorTotal + signo * p.getPrecio() * p.getStock();
+            if (Boolean.TRUE.equals(p.getActivo())) {
+                productosActivos += signo;
+            }
+
+            String categoria = p.getCategoria() != null ? p.getCategoria() : SIN_CATEGORIA;
+            long[] valores = porCategoria.computeIfAbsent(categoria, c -> new long[2]);
+            valores[0] += signo;
+            valores[1] += (long) signo * p.getStock();
+            valorPorCategoria.merge(categoria, signo * p.getPrecio() * p.getStock(), Double::sum);
+            if (valores[0] == 0) {
+                porCategoria.remove(categoria);
+                valorPorCategoria.remove(categoria);
+            }
+        }
+    }
+
+    // Versión de cada producto visto por el recorrido; llegan en orden de id
+    static final class VersionesVistas {
+
+        private int[] ids = new int[LOTE_CARGA];
+        private long[] versiones = new long[LOTE_CARGA];
+        private int cantidad;
+
+        void agregar(int id, long version) {
+            if (cantidad == ids.length) {
+                ids = Arrays.copyOf(ids, cantidad * 2);
+                versiones = Arrays.copyOf(versiones, cantidad * 2);
+            }
+            ids[cantidad] = id;
+            versiones[cantidad] = version;
+            cantidad++;
+        }
+
+        // null si el recorrido no lo vio
+        Long version(int id) {
+            int i = Arrays.binarySearch(ids, 0, cantidad, id);
+            return i >= 0 ? versiones[i] : null;
+        }
+    }
+
+    private List<Producto> consultarTop(String campo) {
+        Sort orden = Sort.by(Sort.Direction.DESC, campo).and(Sort.by(Sort.Direction.ASC, "id"));
+        return repository.findAll(PageRequest.of(0, TOP_K, orden)).getContent();
+    }
+
+    /**
+     * Top-K acotado: un min-heap de tamaño K con el peor elemento en la cabeza.
+     * Si un miembro empeora o se elimina, algún producto de fuera podría
+     * ocupar su lugar; en ese caso se marca incompleto y se vuelve a consultar
+     * el top-K en la base de datos la próxima vez que se lea.
+     */
+    static final class TopK {
+
+        private final int k;
+        private final Comparator<Producto> orden; // el mejor primero
+        private final PriorityQueue<Producto> heap;
+        private final Map<Integer, Producto> miembros = new HashMap<>();
+        private boolean incompleto;
+
+        TopK(int k, Comparator<Producto> orden) {
+            this.k = k;
+            this.orden = orden;
+            this.heap = new PriorityQueue<>(k + 1, orden.reversed());
+        }
+
+        void ofrecer(Producto p) {
+            if (heap.size() < k) {
+                agregar(p);
+            } else if (orden.compare(p, heap.peek()) < 0) {
+                miembros.remove(heap.poll().getId());
+                agregar(p);
+            }
+        }
+
+        void aplicar(Producto anterior, Producto actual) {
+            if (anterior != null) {
+                Producto previo = miembros.remove(anterior.getId());
+                if (previo != null) {
+                    heap.remove(previo);
+                    if (actual == null || orden.compare(actual, previo) > 0) {
+                        incompleto = true;
+                    }
+                }
+            }
+            if (actual != null) {
+                ofrecer(actual);
+            }
+        }
+
+        void reemplazar(List<Producto> productos) {
+            heap.clear();
+            miembros.clear();
+            productos.forEach(this::ofrecer);
+            incompleto = false;
+        }
+
+        List<Producto> ordenados() {
+            List<Producto> lista = new ArrayList<>(heap);
+            lista.sort(orden);
+            return lista;
+        }
+
+        private void agregar(Producto p) {
+            heap.add(p);
+            miembros.put(p.getId(), p);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.model.UmbralCategoria;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.UmbralCategoriaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Productos en riesgo de quiebre de stock, siempre al día.
+ *
+ * El umbral de reorden de un producto es el propio (Producto.umbralReorden),
+ * el de su categoría (UmbralCategoria) o inventario.alertas.umbral-por-defecto.
+ * Por debajo del umbral el producto está en nivel BAJO; por debajo de la
+ * mitad, en CRITICO. Los productos en riesgo se cargan con una consulta al
+ * arrancar y después se mantienen con cada ProductoEvento (todas las
+ * escrituras de stock lo publican), en conjuntos ordenados por stock: el
+ * dashboard y las alertas los leen en O(k) sin recorrer el catálogo. Solo
+ * cuando un producto cambia de nivel se publica un CruceUmbralEvento.
+ *
+ * Los eventos de escrituras concurrentes pueden llegar en otro orden que el
+ * de sus commits: se guarda la última versión vista de cada producto y un
+ * evento con una versión anterior se descarta.
+ */
+@Component
+@Lazy(false)
+public class AlertasStock {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertasStock.class);
+
+    private static final Comparator<Producto> POR_STOCK = Comparator
+            .comparing(Producto::getStock)
+            .thenComparing(Producto::getId);
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Autowired
+    private UmbralCategoriaRepository umbralesRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${inventario.alertas.umbral-por-defecto:10}")
+    private int umbralPorDefecto;
+
+    // Se lee sin bloqueo desde nivel() (dashboard, API)
+    private final Map<String, Integer> umbralesCategoria = new ConcurrentHashMap<>();
+
+    private boolean inicializado;
+
+    // Productos en nivel BAJO o CRITICO, por id y ordenados por stock
+    private final Map<Integer, Producto> enRiesgo = new HashMap<>();
+    private final NavigableSet<Producto> bajos = new TreeSet<>(POR_STOCK);
+    private final NavigableSet<Producto> criticos = new TreeSet<>(POR_STOCK);
+
+    // Última versión aplicada por producto; Long.MAX_VALUE para los eliminados
+    private final Map<Integer, Long> versiones = new HashMap<>();
+
+    // Eventos aplicados: la reconciliación solo compara si no cambió mientras leía la base de datos
+    private long aplicados;
+
+    // La reconciliación anterior tampoco coincidió
+    private boolean desalineado;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconstruir();
+        registry.gauge("inventario.alertas.en-riesgo", this, AlertasStock::cantidadEnRiesgo);
+        registry.gauge("inventario.alertas.criticos", this, AlertasStock::cantidadCriticos);
+    }
+
+    // Reubicar el producto según su nuevo stock; evento solo si cambió de nivel
+    @EventListener
+    public void aplicar(ProductoEvento evento) {
+        CruceUmbralEvento cruce;
+        synchronized (this) {
+            if (!inicializado) {
+                return; // la carga inicial ya verá el cambio
+            }
+            Producto actual = evento.getActual();
+            long version = actual != null ? version(actual) : Long.MAX_VALUE;
+            Long vista = versiones.get(evento.getId());
+            if (vista != null && version <= vista) {
+                return; // llegó después de uno más nuevo
+            }
+            versiones.put(evento.getId(), version);
+            aplicados++;
+            Producto previo = quitar(evento.getId());
+            CruceUmbralEvento.Nivel antes = previo != null ? nivel(previo) : CruceUmbralEvento.Nivel.NORMAL;
+            if (actual == null) {
+                return; // eliminado: deja de estar en riesgo sin generar alerta
+            }
+            CruceUmbralEvento.Nivel despues = nivel(actual);
+            if (despues != CruceUmbralEvento.Nivel.NORMAL) {
+                agregar(actual);
+            }
+            cruce = antes != despues ? new CruceUmbralEvento(actual, antes, despues, umbral(actual)) : null;
+        }
+        if (cruce != null) {
+            publicar(cruce);
+        }
+    }
+
+    // Umbral de reorden efectivo
+    public int umbral(Producto p) {
+        if (p.getUmbralReorden() != null) {
+            return p.getUmbralReorden();
+        }
+        Integer deCategoria = p.getCategoria() != null ? umbralesCategoria.get(p.getCategoria()) : null;
+        return deCategoria != null ? deCategoria : umbralPorDefecto;
+    }
+
+    // Nivel de stock según el umbral efectivo (un producto inexistente cuenta como normal)
+    public CruceUmbralEvento.Nivel nivel(Producto p) {
+        if (p == null || p.getStock() == null) {
+            return CruceUmbralEvento.Nivel.NORMAL;
+        }
+        int umbral = umbral(p);
+        if (p.getStock() < (umbral + 1) / 2) {
+            return CruceUmbralEvento.Nivel.CRITICO;
+        }
+        return p.getStock() < umbral ? CruceUmbralEvento.Nivel.BAJO : CruceUmbralEvento.Nivel.NORMAL;
+    }
+
+    public synchronized long cantidadEnRiesgo() {
+        return bajos.size();
+    }
+
+    public synchronized long cantidadCriticos() {
+        return criticos.size();
+    }
+
+    // Productos en nivel BAJO o CRITICO, de menor a mayor stock
+    public synchronized List<Producto> enRiesgo() {
+        return new ArrayList<>(bajos);
+    }
+
+    // Productos en nivel CRITICO, de menor a mayor stock
+    public synchronized List<Producto> criticos() {
+        return new ArrayList<>(criticos);
+    }
+
+    // Productos en riesgo por categoría (para las series temporales)
+    public synchronized Map<String, Long> enRiesgoPorCategoria() {
+        if (!inicializado) {
+            reconstruir();
+        }
+        Map<String, Long> porCategoria = new HashMap<>();
+        for (Producto p : bajos) {
+            String categoria = p.getCategoria() != null ? p.getCategoria() : AgregadosInventario.SIN_CATEGORIA;
+            porCategoria.merge(categoria, 1L, Long::sum);
+        }
+        return porCategoria;
+    }
+
+    public int getUmbralPorDefecto() {
+        return umbralPorDefecto;
+    }
+
+    public Map<String, Integer> umbralesPorCategoria() {
+        return new TreeMap<>(umbralesCategoria);
+    }
+
+    /**
+     * Fija (o con null quita) el umbral de una categoría y reubica solo los
+     * productos de esa categoría: los que estaban en riesgo y los que la
+     * consulta por categoría (idx_categoria) devuelve con el umbral nuevo.
+     */
+    public void fijarUmbralCategoria(String categoria, Integer umbral) throws Exception {
+        if (categoria == null || categoria.isBlank()) {
+            throw new Exception("La categoría es obligatoria");
+        }
+        if (umbral != null && umbral < 0) {
+            throw new Exception("El umbral de reorden no puede ser negativo");
+        }
+
+        List<CruceUmbralEvento> cruces = new ArrayList<>();
+        synchronized (this) {
+            if (umbral != null) {
+                umbralesRepository.save(new UmbralCategoria(categoria, umbral));
+                umbralesCategoria.put(categoria, umbral);
+            } else {
+                umbralesRepository.deleteById(categoria);
+                umbralesCategoria.remove(categoria);
+            }
+            if (!inicializado) {
+                return;
+            }
+
+            // Los que estaban en riesgo con el umbral anterior (su nivel era el de pertenencia a criticos)
+            Map<Integer, Producto> previos = new HashMap<>();
+            Set<Integer> eranCriticos = new HashSet<>();
+            for (Producto p : new ArrayList<>(enRiesgo.values())) {
+                if (categoria.equals(p.getCategoria())) {
+                    previos.put(p.getId(), p);
+                    if (criticos.contains(p)) {
+                        eranCriticos.add(p.getId());
+                    }
+                    quitar(p.getId());
+                }
+            }
+            int efectivo = umbral != null ? umbral : umbralPorDefecto;
+            for (Producto p : repository.findEnRiesgoPorCategoria(categoria, efectivo)) {
+                agregar(p);
+                CruceUmbralEvento.Nivel antes = previos.remove(p.getId()) == null ? CruceUmbralEvento.Nivel.NORMAL
+                        : eranCriticos.contains(p.getId()) ? CruceUmbralEvento.Nivel.CRITICO : CruceUmbralEvento.Nivel.BAJO;
+                CruceUmbralEvento.Nivel despues = nivel(p);
+                if (antes != despues) {
+                    cruces.add(new CruceUmbralEvento(p, antes, despues, umbral(p)));
+                }
+            }
+            // Los que ya no están en riesgo con el umbral nuevo
+            for (Producto p : previos.values()) {
+                cruces.add(new CruceUmbralEvento(p,
+                        eranCriticos.contains(p.getId()) ? CruceUmbralEvento.Nivel.CRITICO : CruceUmbralEvento.Nivel.BAJO,
+                        CruceUmbralEvento.Nivel.NORMAL, umbral(p)));
+            }
+        }
+        log.info("Umbral de reorden de '{}': {} ({} cambios de nivel)", categoria,
+                umbral != null ? umbral : "por defecto (" + umbralPorDefecto + ")", cruces.size());
+        cruces.forEach(this::publicar);
+    }
+
+    /**
+     * Reconciliación periódica: los productos en riesgo y su nivel deben ser
+     * los de la base de datos. Igual que en AgregadosInventario, no se compara
+     * si se aplicó un evento mientras se leía, y se reconstruye recién cuando
+     * no coincide dos veces seguidas.
+     */
+    @Scheduled(fixedDelayString = "${inventario.estadisticas.reconciliacion-ms:300000}",
+               initialDelayString = "${inventario.estadisticas.reconciliacion-ms:300000}")
+    public void reconciliar() {
+        long aplicadosAntes;
+        synchronized (this) {
+            aplicadosAntes = aplicados;
+        }
+        List<Producto> bd = repository.findEnRiesgo(umbralPorDefecto);
+        int memoria;
+        synchronized (this) {
+            if (aplicados != aplicadosAntes) {
+                log.debug("Cambios de stock durante la reconciliación de alertas, se compara en la próxima");
+                return;
+            }
+            if (inicializado && coinciden(bd)) {
+                desalineado = false;
+                return;
+            }
+            if (inicializado && !desalineado) {
+                desalineado = true;
+                log.debug("Productos en riesgo distintos de la base de datos, se confirma en la próxima reconciliación");
+                return;
+            }
+            desalineado = false;
+            memoria = inicializado ? bajos.size() : -1;
+        }
+        log.warn("Productos en riesgo desalineados con la base de datos (bd: {}, memoria: {}), reconstruyendo",
+                 bd.size(), memoria);
+        reconstruir();
+    }
+
+    // Mismos productos en riesgo y en el mismo nivel
+    private boolean coinciden(List<Producto> bd) {
+        if (bd.size() != enRiesgo.size()) {
+            return false;
+        }
+        for (Producto p : bd) {
+            Producto enMemoria = enRiesgo.get(p.getId());
+            if (enMemoria == null || nivel(enMemoria) != nivel(p)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Umbrales de categoría y productos en riesgo desde la base de datos
+    public synchronized void reconstruir() {
+        umbralesCategoria.clear();
+        for (UmbralCategoria u : umbralesRepository.findAll()) {
+            umbralesCategoria.put(u.getCategoria(), u.getUmbral());
+        }
+        enRiesgo.clear();
+        bajos.clear();
+        criticos.clear();
+        for (Producto p : repository.findEnRiesgo(umbralPorDefecto)) {
+            agregar(p);
+        }
+        inicializado = true;
+        log.debug("Alertas de stock construidas: {} productos en riesgo ({} críticos), {} umbrales de categoría",
+                  bajos.size(), criticos.size(), umbralesCategoria.size());
+    }
+
+    private void agregar(Producto p) {
+        // Las versiones solo crecen: una vista antes sigue valiendo como cota
+        versiones.merge(p.getId(), version(p), Math::max);
+        enRiesgo.put(p.getId(), p);
+        bajos.add(p);
+        if (nivel(p) == CruceUmbralEvento.Nivel.CRITICO) {
+            criticos.add(p);
+        }
+    }
+
+    private Producto quitar(Integer id) {
+        Producto previo = enRiesgo.remove(id);
+        if (previo != null) {
+            bajos.remove(previo);
+            criticos.remove(previo);
+        }
+        return previo;
+    }
+
+    private static long version(Producto p) {
+        return p.getVersion() != null ? p.getVersion() : 0L;
+    }
+
+    private void publicar(CruceUmbralEvento cruce) {
+        registry.counter("inventario.alertas.cruces", "nivel", cruce.getActual().name()).increment();
+        if (cruce.getActual() == CruceUmbralEvento.Nivel.CRITICO) {
+            log.info("Stock crítico: {} ({} unidades, umbral {})",
+                     cruce.getProducto().getCodigo(), cruce.getProducto().getStock(), cruce.getUmbral());
+        }
+        eventos.publishEvent(cruce);
+    }
+}
@@ -0,0 +1,118 @@
+package com.inventario.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nombres de las cachés de productos y su invalidación.
+ *
+ * Toda escritura publica un ProductoEvento, así que basta escucharlo para
+ * que crear, actualizar, eliminar, ajustes de stock, importaciones y
+ * volcados write-behind dejen las cachés consistentes. Quien publica muchos
+ * eventos seguidos (importaciones, operaciones masivas) lo hace dentro de
+ * enLote(): cada evento quita sus entradas por id y código, y los listados
+ * y fragmentos se limpian una sola vez al final.
+ */
+@Component
+public class CachesProducto {
+
+    public static final String POR_ID = "productos";
+    public static final String POR_CODIGO = "productosPorCodigo";
+    public static final String LISTADOS = "listados";
+    public static final String FRAGMENTOS = "fragmentos";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // Versión del catálogo: cambia con cada escritura y forma parte de la clave de los listados,
+    // de los fragmentos HTML y del ETag de las páginas, así nada cargado antes de una escritura se vuelve a servir
+    private final AtomicLong version = new AtomicLong();
+
+    // Lote en curso en este hilo: [0] = llegó algún evento
+    private final ThreadLocal<boolean[]> lote = new ThreadLocal<>();
+
+    @EventListener
+    public void invalidar(ProductoEvento evento) {
+        evict(POR_ID, evento.getId());
+        if (evento.getAnterior() != null) {
+            evict(POR_CODIGO, evento.getAnterior().getCodigo());
+        }
+        if (evento.getActual() != null) {
+            evict(POR_CODIGO, evento.getActual().getCodigo());
+        }
+        boolean[] enCurso = lote.get();
+        if (enCurso != null) {
+            enCurso[0] = true;
+            return;
+        }
+        invalidarListados();
+    }
+
+    // Publica los eventos de una escritura masiva (los listeners corren en este hilo)
+    public void enLote(Runnable publicacion) {
+        if (lote.get() != null) {
+            publicacion.run();
+            return;
+        }
+        boolean[] enCurso = { false };
+        lote.set(enCurso);
+        try {
+            publicacion.run();
+        } finally {
+            lote.remove();
+            if (enCurso[0]) {
+                invalidarListados();
+            }
+        }
+    }
+
+    // Cualquier cambio puede mover filas entre páginas
+    private void invalidarListados() {
+        version.incrementAndGet();
+        clear(LISTADOS);
+        clear(FRAGMENTOS);
+    }
+
+    // Un cambio de nivel por umbral cambia el dashboard (stock bajo y crítico) sin tocar los productos
+    @EventListener
+    public void invalidar(CruceUmbralEvento cruce) {
+        version.incrementAndGet();
+        clear(FRAGMENTOS);
+    }
+
+    private void clear(String nombre) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private void evict(String nombre, Object clave) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache != null && clave != null) {
+            cache.evict(clave);
+        }
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    // Producto por id y por código (Optional con la fila, sin el stock no volcado)
+    Cache porId() {
+        return cacheManager.getCache(POR_ID);
+    }
+
+    Cache porCodigo() {
+        return cacheManager.getCache(POR_CODIGO);
+    }
+
+    // Páginas del listado (clave: filtros + orden + página)
+    Cache listados() {
+        return cacheManager.getCache(LISTADOS);
+    }
+}
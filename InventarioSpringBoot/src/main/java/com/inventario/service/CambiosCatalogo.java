@@ -0,0 +1,72 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Una página del feed de sincronización: productos creados o modificados y
+ * productos eliminados después del cursor, en orden de secuencia. El
+ * cliente guarda "cursor" y lo envía en la siguiente llamada; con
+ * hayMas=true debe pedir de nuevo de inmediato.
+ */
+public class CambiosCatalogo {
+
+    private final List<Producto> cambios = new ArrayList<>();
+    private final List<Eliminado> eliminados = new ArrayList<>();
+    private long cursor;
+    private boolean hayMas;
+
+    CambiosCatalogo(long cursor) {
+        this.cursor = cursor;
+    }
+
+    void cambio(Producto p) {
+        cambios.add(p);
+        cursor = p.getSecuencia();
+    }
+
+    void eliminado(Integer id, String codigo, long secuencia) {
+        eliminados.add(new Eliminado(id, codigo));
+        cursor = secuencia;
+    }
+
+    void setHayMas(boolean hayMas) {
+        this.hayMas = hayMas;
+    }
+
+    public List<Producto> getCambios() {
+        return cambios;
+    }
+
+    public List<Eliminado> getEliminados() {
+        return eliminados;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public boolean isHayMas() {
+        return hayMas;
+    }
+
+    public static class Eliminado {
+
+        private final Integer id;
+        private final String codigo;
+
+        Eliminado(Integer id, String codigo) {
+            this.id = id;
+            this.codigo = codigo;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public String getCodigo() {
+            return codigo;
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Copia en memoria del catálogo por columnas primitivas, para recorrer y
+ * ordenar sin cargar entidades.
+ *
+ * Cada producto ocupa una posición en arreglos paralelos (id, precio,
+ * stock, código de categoría) más un bit de activo y otro de vigencia;
+ * las categorías se guardan una sola vez en un diccionario. Son unos 20
+ * bytes por producto, sin cabeceras de objeto ni punteros que seguir. Las
+ * posiciones están ordenadas por id: las altas con id nuevo se agregan al
+ * final, las bajas solo apagan el bit de vigencia y cuando hay muchas se
+ * compacta. Se mantiene al día con cada ProductoEvento.
+ *
+ * Sirve el listado sin búsqueda de texto (filtro por categoría y orden por
+ * id, precio o stock) y el modo "columnar" de las estadísticas. Nombre,
+ * código y demás campos no se copian: las filas de la página se cargan por
+ * PK.
+ *
+ * El orden por id recorre las posiciones tal cual. Para precio y stock se
+ * guarda una permutación de posiciones por criterio, armada la primera vez
+ * que se pide (con el lock de lectura, sin frenar a otros lectores). Cada
+ * evento la corrige en el lugar: la posición que cambió de valor se saca y
+ * se vuelve a insertar por búsqueda binaria, y un alta al final se inserta.
+ * Solo una inserción en medio de las posiciones o una compactación (ambas
+ * poco comunes) las descartan.
+ */
+@Component
+@ConditionalOnProperty(name = "inventario.catalogo.columnar.habilitado", havingValue = "true")
+public class CatalogoColumnar {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoColumnar.class);
+
+    private static final int LOTE_CARGA = 1000;
+    private static final int CAPACIDAD_INICIAL = 1024;
+    private static final String SIN_CATEGORIA = "Sin categoría";
+
+    @Autowired
+    private ProductoRepository repository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Columnas (posiciones 0..tamano-1, ordenadas por id)
+    private int[] ids = new int[CAPACIDAD_INICIAL];
+    private double[] precios = new double[CAPACIDAD_INICIAL];
+    private int[] stocks = new int[CAPACIDAD_INICIAL];
+    private int[] categorias = new int[CAPACIDAD_INICIAL];
+    private BitSet activos = new BitSet();
+    private BitSet vigentes = new BitSet();
+    private int tamano;
+    private int eliminados;
+
+    // Diccionario de categorías: código -> nombre y nombre -> código
+    private final List<String> diccionario = new ArrayList<>();
+    private final Map<String, Integer> codigos = new HashMap<>();
+
+    // Permutaciones por criterio de orden (precio y stock); las escrituras las corrigen bajo el lock de escritura
+    private final Map<String, Orden> ordenes = new ConcurrentHashMap<>();
+
+    private volatile boolean listo;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            tamano = 0;
+            eliminados = 0;
+            ordenes.clear();
+            activos = new BitSet();
+            vigentes = new BitSet();
+            diccionario.clear();
+            codigos.clear();
+            int ultimoId = 0;
+            Slice<Producto> lote;
+            do {
+                lote = repository.findByIdGreaterThanOrderByIdAsc(ultimoId, PageRequest.of(0, LOTE_CARGA));
+                for (Producto p : lote) {
+                    escribir(agregarAlFinal(), p);
+                    ultimoId = p.getId();
+                }
+            } while (lote.hasNext());
+            listo = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Catálogo columnar construido: {} productos, {} categorías en {} ms",
+                tamano, diccionario.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @EventListener
+    public void aplicar(ProductoEvento evento) {
+        lock.writeLock().lock();
+        try {
+            if (evento.getActual() != null) {
+                guardar(evento.getActual());
+            } else {
+                quitar(evento.getAnterior().getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    // Se atiende aquí cualquier orden del listado salvo "nombre" (no hay columna de nombres)
+    public static boolean soportaOrden(String ordenar) {
+        return !"nombre".equals(ordenar);
+    }
+
+    /**
+     * Ids de una página del listado filtrado por categoría (opcional) y
+     * ordenado por "ordenar" (mismos valores que el listado, desempate por
+     * id), junto con el total de coincidencias.
+     */
+    public Pagina pagina(String categoria, String ordenar, int desde, int cantidad) {
+        boolean filtrar = categoria != null && !categoria.trim().isEmpty() && !categoria.equals("Todas");
+
+        lock.readLock().lock();
+        try {
+            String clave = claveOrden(ordenar);
+            // Por id no hace falta permutación: las posiciones ya están en ese orden
+            Orden orden = clave.isEmpty() ? null : orden(clave);
+            int codigo = filtrar ? codigos.getOrDefault(categoria, -2) : -1;
+            List<Integer> idsPagina = new ArrayList<>(cantidad);
+            int total = 0;
+            for (int k = 0; k < tamano; k++) {
+                int posicion = orden != null ? orden.posiciones[k] : k;
+                if (!vigentes.get(posicion) || (filtrar && categorias[posicion] != codigo)) {
+                    continue;
+                }
+                if (total >= desde && idsPagina.size() < cantidad) {
+                    idsPagina.add(ids[posicion]);
+                }
+                total++;
+            }
+            return new Pagina(idsPagina, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Contadores del dashboard en una pasada sobre las columnas, más las
+     * posiciones de los top-5 (ids, para cargarlos por PK). El stock bajo y
+     * crítico salen de AlertasStock.
+     */
+    public Resumen resumen() {
+        lock.readLock().lock();
+        try {
+            Resumen r = new Resumen();
+            long[] productosPorCodigo = new long[diccionario.size() + 1];
+            long[] stockPorCodigo = new long[diccionario.size() + 1];
+            TopPosiciones masCaros = new TopPosiciones(AgregadosInventario.TOP_K);
+            TopPosiciones masStock = new TopPosiciones(AgregadosInventario.TOP_K);
+
+            for (int i = vigentes.nextSetBit(0); i >= 0 && i < tamano; i = vigentes.nextSetBit(i + 1)) {
+                double precio = precios[i];
+                int stock = stocks[i];
+                r.totalProductos++;
+                r.valorTotal += precio * stock;
+                if (activos.get(i)) {
+                    r.productosActivos++;
+                }
+                // Código -1 (sin categoría) va en la última celda
+                int celda = categorias[i] >= 0 ? categorias[i] : diccionario.size();
+                productosPorCodigo[celda]++;
+                stockPorCodigo[celda] += stock;
+                masCaros.ofrecer(precio, ids[i]);
+                masStock.ofrecer(stock, ids[i]);
+            }
+
+            for (int c = 0; c <= diccionario.size(); c++) {
+                if (productosPorCodigo[c] > 0) {
+                    String nombre = c < diccionario.size() ? diccionario.get(c) : SIN_CATEGORIA;
+                    r.productosPorCategoria.merge(nombre, productosPorCodigo[c], Long::sum);
+                    r.stockPorCategoria.merge(nombre, (int) stockPorCodigo[c], Integer::sum);
+                }
+            }
+            r.idsMasCaros = masCaros.ids();
+            r.idsMasStock = masStock.ids();
+            return r;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTamano() {
+        lock.readLock().lock();
+        try {
+            return tamano - eliminados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void guardar(Producto p) {
+        int posicion = buscarPosicion(p.getId());
+        if (posicion < 0) {
+            int insercion = -posicion - 1;
+            if (insercion == tamano) {
+                posicion = agregarAlFinal();
+                escribir(posicion, p);
+                for (Orden orden : ordenes.values()) {
+                    orden.insertar(posicion);
+                }
+            } else {
+                // Corre una posición todo lo que sigue: las permutaciones se vuelven a armar
+                escribir(insertarEn(insercion), p);
+                ordenes.clear();
+            }
+            return;
+        }
+        if (!vigentes.get(posicion)) {
+            eliminados--;
+        }
+        double precioAnterior = precios[posicion];
+        int stockAnterior = stocks[posicion];
+        escribir(posicion, p);
+        for (Orden orden : ordenes.values()) {
+            if (!orden.reubicar(posicion, orden.porPrecio ? precioAnterior : stockAnterior)) {
+                ordenes.remove(orden.clave);
+            }
+        }
+    }
+
+    private void quitar(int id) {
+        int posicion = buscarPosicion(id);
+        if (posicion >= 0 && vigentes.get(posicion)) {
+            vigentes.clear(posicion);
+            eliminados++;
+            if (eliminados > CAPACIDAD_INICIAL && eliminados > tamano / 4) {
+                compactar();
+            }
+        }
+    }
+
+    private void escribir(int posicion, Producto p) {
+        ids[posicion] = p.getId();
+        precios[posicion] = p.getPrecio() != null ? p.getPrecio() : 0;
+        stocks[posicion] = p.getStock() != null ? p.getStock() : 0;
+        categorias[posicion] = codigoCategoria(p.getCategoria());
+        activos.set(posicion, Boolean.TRUE.equals(p.getActivo()));
+        vigentes.set(posicion);
+    }
+
+    private int codigoCategoria(String categoria) {
+        if (categoria == null) {
+            return -1;
+        }
+        Integer codigo = codigos.get(categoria);
+        if (codigo == null) {
+            codigo = diccionario.size();
+            diccionario.add(categoria);
+            codigos.put(categoria, codigo);
+        }
+        return codigo;
+    }
+
+    private int buscarPosicion(int id) {
+        return Arrays.binarySearch(ids, 0, tamano, id);
+    }
+
+    private int agregarAlFinal() {
+        asegurarCapacidad(tamano + 1);
+        return tamano++;
+    }
+
+    // Id menor que el último (poco común): desplaza las columnas una posición
+    private int insertarEn(int posicion) {
+        asegurarCapacidad(tamano + 1);
+        int mover = tamano - posicion;
+        System.arraycopy(ids, posicion, ids, posicion + 1, mover);
+        System.arraycopy(precios, posicion, precios, posicion + 1, mover);
+        System.arraycopy(stocks, posicion, stocks, posicion + 1, mover);
+        System.arraycopy(categorias, posicion, categorias, posicion + 1, mover);
+        activos = desplazar(activos, posicion);
+        vigentes = desplazar(vigentes, posicion);
+        tamano++;
+        return posicion;
+    }
+
+    private static BitSet desplazar(BitSet bits, int desde) {
+        BitSet resultado = bits.get(0, desde);
+        BitSet resto = bits.get(desde, Math.max(desde, bits.length()));
+        for (int i = resto.nextSetBit(0); i >= 0; i = resto.nextSetBit(i + 1)) {
+            resultado.set(desde + 1 + i);
+        }
+        return resultado;
+    }
+
+    private void asegurarCapacidad(int minimo) {
+        if (minimo > ids.length) {
+            int capacidad = Math.max(minimo, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, capacidad);
+            precios = Arrays.copyOf(precios, capacidad);
+            stocks = Arrays.copyOf(stocks, capacidad);
+            categorias = Arrays.copyOf(categorias, capacidad);
+        }
+    }
+
+    // Elimina las posiciones dadas de baja conservando el orden por id
+    private void compactar() {
+        int destino = 0;
+        BitSet nuevosActivos = new BitSet(tamano - eliminados);
+        for (int i = vigentes.nextSetBit(0); i >= 0 && i < tamano; i = vigentes.nextSetBit(i + 1)) {
+            ids[destino] = ids[i];
+            precios[destino] = precios[i];
+            stocks[destino] = stocks[i];
+            categorias[destino] = categorias[i];
+            nuevosActivos.set(destino, activos.get(i));
+            destino++;
+        }
+        tamano = destino;
+        eliminados = 0;
+        activos = nuevosActivos;
+        vigentes = new BitSet(tamano);
+        vigentes.set(0, tamano);
+        ordenes.clear();
+    }
+
+    private static String claveOrden(String ordenar) {
+        if (ordenar == null) {
+            return "";
+        }
+        switch (ordenar) {
+            case "precio_asc":
+            case "precio_desc":
+            case "stock_asc":
+            case "stock_desc":
+                return ordenar;
+            default:
+                return "";
+        }
+    }
+
+    // Bajo el lock de lectura: la permutación del criterio, armándola si todavía no está
+    private Orden orden(String clave) {
+        Orden orden = ordenes.get(clave);
+        if (orden != null) {
+            return orden;
+        }
+        // Ninguna escritura puede correr mientras se arma; dos lectores a la vez pueden armarla, queda una
+        Orden nueva = new Orden(clave);
+        Orden existente = ordenes.putIfAbsent(clave, nueva);
+        return existente != null ? existente : nueva;
+    }
+
+    private interface ComparadorPosiciones {
+        int comparar(int a, int b);
+    }
+
+    // Merge sort estable sobre int[] (sin boxing)
+    private static void ordenarEstable(int[] posiciones, ComparadorPosiciones cmp) {
+        int[] auxiliar = new int[posiciones.length];
+        int[] origen = posiciones;
+        int[] destino = auxiliar;
+        for (int ancho = 1; ancho < posiciones.length; ancho *= 2) {
+            for (int inicio = 0; inicio < posiciones.length; inicio += 2 * ancho) {
+                int medio = Math.min(inicio + ancho, posiciones.length);
+                int fin = Math.min(inicio + 2 * ancho, posiciones.length);
+                int i = inicio;
+                int j = medio;
+                int k = inicio;
+                while (i < medio && j < fin) {
+                    destino[k++] = cmp.comparar(origen[j], origen[i]) < 0 ? origen[j++] : origen[i++];
+                }
+                while (i < medio) {
+                    destino[k++] = origen[i++];
+                }
+                while (j < fin) {
+                    destino[k++] = origen[j++];
+                }
+            }
+            int[] tmp = origen;
+            origen = destino;
+            destino = tmp;
+        }
+        if (origen != posiciones) {
+            System.arraycopy(origen, 0, posiciones, 0, posiciones.length);
+        }
+    }
+
+    /**
+     * Posiciones ordenadas por precio o stock, ascendente o descendente, con
+     * desempate por posición (es decir, por id). Guarda las posiciones dadas
+     * de baja también (el listado las salta), así que siempre tiene
+     * "tamano" elementos. Solo se modifica bajo el lock de escritura.
+     */
+    private final class Orden {
+
+        private final String clave;
+        private final boolean porPrecio;
+        private final boolean descendente;
+        private int[] posiciones;
+        private int largo;
+
+        Orden(String clave) {
+            this.clave = clave;
+            this.porPrecio = clave.startsWith("precio");
+            this.descendente = clave.endsWith("_desc");
+            posiciones = new int[Math.max(tamano, CAPACIDAD_INICIAL)];
+            for (int i = 0; i < tamano; i++) {
+                posiciones[i] = i;
+            }
+            largo = tamano;
+            int[] ordenadas = Arrays.copyOf(posiciones, largo);
+            ordenarEstable(ordenadas, (a, b) -> comparar(valor(a), a, valor(b), b));
+            System.arraycopy(ordenadas, 0, posiciones, 0, largo);
+        }
+
+        // Alta al final de las columnas
+        void insertar(int posicion) {
+            if (largo == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, largo + (largo >> 1) + 1);
+            }
+            int destino = buscar(valor(posicion), posicion);
+            System.arraycopy(posiciones, destino, posiciones, destino + 1, largo - destino);
+            posiciones[destino] = posicion;
+            largo++;
+        }
+
+        // La posición tenía "anterior" y ya tiene el valor nuevo; false si no estaba donde debía
+        boolean reubicar(int posicion, double anterior) {
+            if (Double.compare(anterior, valor(posicion)) == 0) {
+                return true;
+            }
+            int origen = buscar(anterior, posicion);
+            if (origen >= largo || posiciones[origen] != posicion) {
+                return false;
+            }
+            System.arraycopy(posiciones, origen + 1, posiciones, origen, largo - origen - 1);
+            largo--;
+            int destino = buscar(valor(posicion), posicion);
+            System.arraycopy(posiciones, destino, posiciones, destino + 1, largo - destino);
+            posiciones[destino] = posicion;
+            largo++;
+            return true;
+        }
+
+        // Primer índice cuya posición no va antes de (valor, posicion)
+        private int buscar(double valor, int posicion) {
+            int bajo = 0;
+            int alto = largo;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                int otra = posiciones[medio];
+                if (comparar(valor(otra), otra, valor, posicion) < 0) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        private double valor(int posicion) {
+            return porPrecio ? precios[posicion] : stocks[posicion];
+        }
+
+        private int comparar(double valorA, int posicionA, double valorB, int posicionB) {
+            int c = descendente ? Double.compare(valorB, valorA) : Double.compare(valorA, valorB);
+            return c != 0 ? c : Integer.compare(posicionA, posicionB);
+        }
+    }
+
+    /**
+     * Los K mayores valores (desempate por id menor), con el mejor primero.
+     */
+    private static final class TopPosiciones {
+
+        private final double[] valores;
+        private final int[] ids;
+        private int tamano;
+
+        TopPosiciones(int k) {
+            this.valores = new double[k];
+            this.ids = new int[k];
+        }
+
+        void ofrecer(double valor, int id) {
+            if (tamano == valores.length) {
+                if (!mejor(valor, id, valores[tamano - 1], ids[tamano - 1])) {
+                    return;
+                }
+                tamano--;
+            }
+            int i = tamano;
+            while (i > 0 && mejor(valor, id, valores[i - 1], ids[i - 1])) {
+                valores[i] = valores[i - 1];
+                ids[i] = ids[i - 1];
+                i--;
+            }
+            valores[i] = valor;
+            ids[i] = id;
+            tamano++;
+        }
+
+        List<Integer> ids() {
+            List<Integer> resultado = new ArrayList<>(tamano);
+            for (int i = 0; i < tamano; i++) {
+                resultado.add(ids[i]);
+            }
+            return resultado;
+        }
+
+        private static boolean mejor(double valor, int id, double otroValor, int otroId) {
+            return valor > otroValor || (valor == otroValor && id < otroId);
+        }
+    }
+
+    public static final class Pagina {
+
+        private final List<Integer> ids;
+        private final long total;
+
+        Pagina(List<Integer> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Integer> getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+
+    public static final class Resumen {
+
+        private long totalProductos;
+        private double valorTotal;
+        private long productosActivos;
+        private final Map<String, Long> productosPorCategoria = new HashMap<>();
+        private final Map<String, Integer> stockPorCategoria = new HashMap<>();
+        private List<Integer> idsMasCaros;
+        private List<Integer> idsMasStock;
+
+        public long getTotalProductos() {
+            return totalProductos;
+        }
+
+        public double getValorTotal() {
+            return valorTotal;
+        }
+
+        public long getProductosActivos() {
+            return productosActivos;
+        }
+
+        public Map<String, Long> getProductosPorCategoria() {
+            return productosPorCategoria;
+        }
+
+        public Map<String, Integer> getStockPorCategoria() {
+            return stockPorCategoria;
+        }
+
+        public List<Integer> getIdsMasCaros() {
+            return idsMasCaros;
+        }
+
+        public List<Integer> getIdsMasStock() {
+            return idsMasStock;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+
+/**
+ * Evento publicado por AlertasStock solo cuando un producto cambia de
+ * nivel de stock (por una escritura o por un cambio de umbral). Las
+ * escrituras que no cruzan ningún umbral no generan evento.
+ */
+public class CruceUmbralEvento {
+
+    public enum Nivel { NORMAL, BAJO, CRITICO }
+
+    private final Producto producto;
+    private final Nivel anterior;
+    private final Nivel actual;
+    private final int umbral;
+
+    public CruceUmbralEvento(Producto producto, Nivel anterior, Nivel actual, int umbral) {
+        this.producto = producto;
+        this.anterior = anterior;
+        this.actual = actual;
+        this.umbral = umbral;
+    }
+
+    public Producto getProducto() {
+        return producto;
+    }
+
+    public Nivel getAnterior() {
+        return anterior;
+    }
+
+    public Nivel getActual() {
+        return actual;
+    }
+
+    // Umbral de reorden efectivo del producto en el momento del cruce
+    public int getUmbral() {
+        return umbral;
+    }
+
+    // true si bajó de nivel (NORMAL -> BAJO, BAJO -> CRITICO...)
+    public boolean isEmpeora() {
+        return actual.compareTo(anterior) > 0;
+    }
+}
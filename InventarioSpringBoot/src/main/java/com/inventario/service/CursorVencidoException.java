@@ -0,0 +1,19 @@
+package com.inventario.service;
+
+/**
+ * El cursor de sincronización es anterior a lápidas ya purgadas: el cliente
+ * podría no enterarse de algunas bajas y debe resincronizar desde 0.
+ */
+public class CursorVencidoException extends Exception {
+
+    private final long cursor;
+
+    public CursorVencidoException(long cursor) {
+        super("Cursor de sincronización vencido: " + cursor + ", resincronizar desde 0");
+        this.cursor = cursor;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+}
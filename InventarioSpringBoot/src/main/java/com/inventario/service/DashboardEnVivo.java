@@ -0,0 +1,283 @@
+package com.inventario.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.model.Producto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cambios del inventario empujados al dashboard por Server-Sent Events.
+ *
+ * Los ProductoEvento se acumulan por producto (el primero "anterior" y el
+ * último "actual") y cada inventario.dashboard.push.intervalo-ms se arma
+ * un único mensaje JSON con los cambios netos, los cruces de umbral de
+ * stock y las estadísticas de AgregadosInventario (en memoria, sin
+ * consultar la BD; si no está habilitado, las consultas agregadas de
+ * EstadisticasService). Ese mismo texto se envía a todos los navegadores
+ * conectados: el costo por cambio no crece con la cantidad de clientes.
+ *
+ * El job programado solo encola el mensaje: cada cliente tiene su cola y
+ * lo escriben los hilos de inventario.dashboard.push.hilos-envio, un envío
+ * a la vez por cliente. Un navegador que no lee (envío de más de
+ * envio-timeout-ms o cola llena) se desconecta sin frenar a los demás ni
+ * al scheduler compartido.
+ */
+@Component
+@Lazy(false)
+public class DashboardEnVivo {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardEnVivo.class);
+
+    static final String EVENTO = "actualizacion";
+
+    @Autowired
+    private EstadisticasService estadisticas;
+
+    @Autowired
+    private AlertasStock alertas;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${inventario.dashboard.push.timeout-min:30}")
+    private long timeoutMin;
+
+    @Value("${inventario.dashboard.push.latido-ms:20000}")
+    private long latidoMs;
+
+    @Value("${inventario.dashboard.push.hilos-envio:2}")
+    private int hilosEnvio;
+
+    @Value("${inventario.dashboard.push.envio-timeout-ms:5000}")
+    private long envioTimeoutMs;
+
+    @Value("${inventario.dashboard.push.cola-por-cliente:32}")
+    private int colaPorCliente;
+
+    private final List<Cliente> clientes = new CopyOnWriteArrayList<>();
+
+    private ExecutorService envios;
+
+    // Cambios pendientes de enviar, fusionados por id de producto (orden de llegada)
+    private Map<Integer, Producto[]> pendientes = new LinkedHashMap<>();
+
+    private volatile long ultimoEnvio = System.currentTimeMillis();
+
+    @PostConstruct
+    public void iniciar() {
+        AtomicInteger hilos = new AtomicInteger();
+        envios = Executors.newFixedThreadPool(hilosEnvio, tarea -> {
+            Thread hilo = new Thread(tarea, "dashboard-sse-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    public void detener() {
+        envios.shutdownNow();
+    }
+
+    // Nueva suscripción; el navegador (EventSource) se reconecta solo al expirar
+    public SseEmitter suscribir() {
+        SseEmitter emitter = new SseEmitter(timeoutMin * 60_000);
+        Cliente cliente = new Cliente(emitter);
+        emitter.onCompletion(() -> clientes.remove(cliente));
+        emitter.onTimeout(() -> clientes.remove(cliente));
+        emitter.onError(e -> clientes.remove(cliente));
+        clientes.add(cliente);
+        return emitter;
+    }
+
+    public int getClientes() {
+        return clientes.size();
+    }
+
+    @EventListener
+    public void registrar(ProductoEvento evento) {
+        synchronized (this) {
+            Producto[] cambio = pendientes.get(evento.getId());
+            if (cambio == null) {
+                pendientes.put(evento.getId(), new Producto[] { evento.getAnterior(), evento.getActual() });
+            } else {
+                cambio[1] = evento.getActual();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventario.dashboard.push.intervalo-ms:1000}")
+    public void enviar() {
+        Map<Integer, Producto[]> lote;
+        synchronized (this) {
+            if (pendientes.isEmpty()) {
+                lote = null;
+            } else {
+                lote = pendientes;
+                pendientes = new LinkedHashMap<>();
+            }
+        }
+
+        if (clientes.isEmpty()) {
+            return;
+        }
+        if (lote == null) {
+            // Comentario SSE periódico: mantiene viva la conexión en proxies y detecta clientes caídos
+            if (System.currentTimeMillis() - ultimoEnvio >= latidoMs) {
+                difundir(SseEmitter.event().comment("latido"));
+            }
+            return;
+        }
+
+        List<Map<String, Object>> cambios = new ArrayList<>();
+        for (Producto[] cambio : lote.values()) {
+            Map<String, Object> resumen = resumir(cambio[0], cambio[1]);
+            if (resumen != null) {
+                cambios.add(resumen);
+            }
+        }
+        if (cambios.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> mensaje = new LinkedHashMap<>();
+        mensaje.put("cambios", cambios);
+        mensaje.put("estadisticas", estadisticas.obtenerIncrementales());
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(mensaje);
+        } catch (JsonProcessingException e) {
+            log.error("No se pudo serializar la actualización del dashboard", e);
+            return;
+        }
+        difundir(SseEmitter.event().name(EVENTO).data(json));
+    }
+
+    // Encola el mensaje (armado una sola vez) para cada cliente; no escribe en ningún socket
+    private void difundir(SseEmitter.SseEventBuilder evento) {
+        long ahora = System.currentTimeMillis();
+        ultimoEnvio = ahora;
+        Set<ResponseBodyEmitter.DataWithMediaType> datos = evento.build();
+        for (Cliente cliente : clientes) {
+            boolean lanzar = false;
+            boolean lento;
+            synchronized (cliente) {
+                lento = cliente.enviando && ahora - cliente.enviandoDesde > envioTimeoutMs
+                        || cliente.cola.size() >= colaPorCliente;
+                if (!lento) {
+                    cliente.cola.add(datos);
+                    if (!cliente.enviando) {
+                        cliente.enviando = true;
+                        cliente.enviandoDesde = ahora;
+                        lanzar = true;
+                    }
+                }
+            }
+            if (lento) {
+                // El envío en curso puede seguir bloqueado: cierra la conexión el hilo de envío al terminar
+                log.debug("Cliente del dashboard sin leer desde hace {} ms, desconectado", ahora - cliente.enviandoDesde);
+                descartar(cliente);
+            } else if (lanzar) {
+                envios.execute(() -> vaciar(cliente));
+            }
+        }
+    }
+
+    // En un hilo de envío: escribe la cola del cliente en orden hasta vaciarla
+    private void vaciar(Cliente cliente) {
+        while (true) {
+            Set<ResponseBodyEmitter.DataWithMediaType> datos;
+            synchronized (cliente) {
+                datos = cliente.descartado ? null : cliente.cola.poll();
+                if (datos == null) {
+                    cliente.enviando = false;
+                    break;
+                }
+                cliente.enviandoDesde = System.currentTimeMillis();
+            }
+            try {
+                cliente.emitter.send(datos);
+            } catch (IOException | IllegalStateException e) {
+                // Navegador desconectado: se descarta sin afectar al resto
+                descartar(cliente);
+                cliente.emitter.completeWithError(e);
+                return;
+            }
+        }
+        if (cliente.descartado) {
+            cliente.emitter.complete();
+        }
+    }
+
+    // Deja de enviarle; si no hay envío en curso la conexión se cierra aquí, si no al terminar ese envío
+    private void descartar(Cliente cliente) {
+        clientes.remove(cliente);
+        boolean libre;
+        synchronized (cliente) {
+            cliente.descartado = true;
+            cliente.cola.clear();
+            libre = !cliente.enviando;
+        }
+        if (libre) {
+            envios.execute(cliente.emitter::complete);
+        }
+    }
+
+    // Cambio neto de un producto dentro del intervalo; null si se creó y eliminó en el mismo intervalo
+    private Map<String, Object> resumir(Producto anterior, Producto actual) {
+        if (anterior == null && actual == null) {
+            return null;
+        }
+        Producto p = actual != null ? actual : anterior;
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("tipo", anterior == null ? ProductoEvento.Tipo.CREADO
+                : actual == null ? ProductoEvento.Tipo.ELIMINADO : ProductoEvento.Tipo.ACTUALIZADO);
+        resumen.put("id", p.getId());
+        resumen.put("codigo", p.getCodigo());
+        resumen.put("nombre", p.getNombre());
+        resumen.put("stockAnterior", anterior != null ? anterior.getStock() : null);
+        resumen.put("stock", actual != null ? actual.getStock() : null);
+        resumen.put("umbral", cruceUmbral(anterior, actual));
+        return resumen;
+    }
+
+    // "critico" / "bajo" al bajar de un umbral, "normal" al recuperarse; null si no cruzó ninguno
+    private String cruceUmbral(Producto anterior, Producto actual) {
+        CruceUmbralEvento.Nivel antes = alertas.nivel(anterior);
+        CruceUmbralEvento.Nivel despues = alertas.nivel(actual);
+        if (antes == despues || actual == null) {
+            return null;
+        }
+        return despues.name().toLowerCase();
+    }
+
+    // Un navegador conectado: su cola de mensajes y si hay un envío en curso (guardados por el propio objeto)
+    private static final class Cliente {
+
+        private final SseEmitter emitter;
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> cola = new ArrayDeque<>();
+        private boolean enviando;
+        private long enviandoDesde;
+        private boolean descartado;
+
+        Cliente(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -2,10 +2,13 @@ package com.inventario.service;
 
 import com.inventario.model.Producto;
 import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.ResumenCategoria;
+import com.inventario.repository.ResumenInventario;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class EstadisticasService {
@@ -13,68 +16,128 @@ public class EstadisticasService {
     @Autowired
     private ProductoRepository repository;
 
+    // Solo existe con inventario.estadisticas.modo=incremental
+    @Autowired
+    private ObjectProvider<AgregadosInventario> agregados;
+
+    // Stock bajo y crítico en todos los modos (umbrales por producto y categoría)
+    @Autowired
+    private AlertasStock alertas;
+
+    // Solo existe con inventario.catalogo.columnar.habilitado=true
+    @Autowired
+    private ObjectProvider<CatalogoColumnar> catalogoColumnar;
+
+    // incremental (agregados en memoria) | sql (consultas agregadas) | streams (recalcula sobre findAll)
+    // | columnar (recorre CatalogoColumnar; sin él, como streams)
+    @Value("${inventario.estadisticas.modo:incremental}")
+    private String modo;
+
+    // Modo streams: desde cuántos productos el cálculo se reparte entre los núcleos (fork/join)
+    @Value("${inventario.estadisticas.umbral-paralelo:50000}")
+    private int umbralParalelo;
+
     public Map<String, Object> obtenerEstadisticas() {
+        switch (modo) {
+            case "streams":
+                return conAlertas(calcularConStreams());
+            case "columnar":
+                CatalogoColumnar columnar = catalogoColumnar.getIfAvailable();
+                return conAlertas(columnar != null && columnar.isListo() ? calcularConColumnas(columnar) : calcularConStreams());
+            case "sql":
+                return conAlertas(calcularConSql());
+            default:
+                return obtenerIncrementales();
+        }
+    }
+
+    // Estadísticas en memoria de AgregadosInventario; sin él, las consultas agregadas
+    public Map<String, Object> obtenerIncrementales() {
+        AgregadosInventario incrementales = agregados.getIfAvailable();
+        return incrementales != null ? incrementales.obtenerEstadisticas() : conAlertas(calcularConSql());
+    }
+
+    // Por categoría: [0] = cantidad de productos, [1] = suma de stock, [2] = valor (para las series temporales)
+    public Map<String, double[]> resumenPorCategoria() {
+        AgregadosInventario incrementales = agregados.getIfAvailable();
+        if (incrementales != null) {
+            return incrementales.resumenPorCategoria();
+        }
+        Map<String, double[]> resumen = new HashMap<>();
+        for (ResumenCategoria fila : repository.resumenPorCategoria()) {
+            String categoria = fila.getCategoria() != null ? fila.getCategoria() : AgregadosInventario.SIN_CATEGORIA;
+            double[] valores = resumen.computeIfAbsent(categoria, c -> new double[3]);
+            valores[0] += fila.getProductos();
+            valores[1] += fila.getStock() != null ? fila.getStock() : 0;
+            valores[2] += fila.getValor() != null ? fila.getValor() : 0;
+        }
+        return resumen;
+    }
+
+    // Stock bajo y crítico desde el conjunto de AlertasStock (O(k), sin recorrer el catálogo)
+    private Map<String, Object> conAlertas(Map<String, Object> stats) {
+        stats.put("stockBajo", alertas.cantidadEnRiesgo());
+        stats.put("productosStockCritico", alertas.criticos());
+        return stats;
+    }
+
+    // Cálculo con consultas agregadas: solo escalares y unas pocas filas salen de la base de datos
+    Map<String, Object> calcularConSql() {
         Map<String, Object> stats = new HashMap<>();
-        List<Producto> productos = repository.findAll();
-
-        // Total de productos
-        stats.put("totalProductos", productos.size());
-
-        // Valor total del inventario
-        double valorTotal = productos.stream()
-                .mapToDouble(p -> p.getPrecio() * p.getStock())
-                .sum();
-        stats.put("valorTotal", valorTotal);
-
-        // Productos activos
-        long productosActivos = productos.stream()
-                .filter(Producto::getActivo)
-                .count();
-        stats.put("productosActivos", productosActivos);
-
-        // Productos con stock bajo (menos de 10)
-        long stockBajo = productos.stream()
-                .filter(p -> p.getStock() < 10)
-                .count();
-        stats.put("stockBajo", stockBajo);
-
-        // Productos por categoría
-        Map<String, Long> productosPorCategoria = productos.stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getCategoria() != null ? p.getCategoria() : "Sin categoría",
-                        Collectors.counting()
-                ));
-        stats.put("productosPorCategoria", productosPorCategoria);
 
-        // Stock por categoría
-        Map<String, Integer> stockPorCategoria = productos.stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getCategoria() != null ? p.getCategoria() : "Sin categoría",
-                        Collectors.summingInt(Producto::getStock)
-                ));
+        ResumenInventario resumen = repository.resumen();
+        stats.put("totalProductos", resumen.getTotalProductos().intValue());
+        stats.put("valorTotal", resumen.getValorTotal());
+        stats.put("productosActivos", resumen.getProductosActivos());
+
+        Map<String, Long> productosPorCategoria = new HashMap<>();
+        Map<String, Integer> stockPorCategoria = new HashMap<>();
+        for (ResumenCategoria fila : repository.resumenPorCategoria()) {
+            String categoria = fila.getCategoria() != null ? fila.getCategoria() : "Sin categoría";
+            productosPorCategoria.merge(categoria, fila.getProductos(), Long::sum);
+            stockPorCategoria.merge(categoria, fila.getStock().intValue(), Integer::sum);
+        }
+        stats.put("productosPorCategoria", productosPorCategoria);
         stats.put("stockPorCategoria", stockPorCategoria);
 
-        // Productos más caros (top 5)
-        List<Producto> productosMasCaros = productos.stream()
-                .sorted(Comparator.comparing(Producto::getPrecio).reversed())
-                .limit(5)
-                .collect(Collectors.toList());
-        stats.put("productosMasCaros", productosMasCaros);
-
-        // Productos con más stock (top 5)
-        List<Producto> productosMasStock = productos.stream()
-                .sorted(Comparator.comparing(Producto::getStock).reversed())
-                .limit(5)
-                .collect(Collectors.toList());
-        stats.put("productosMasStock", productosMasStock);
-
-        // Productos con stock crítico (menos de 5)
-        List<Producto> productosStockCritico = productos.stream()
-                .filter(p -> p.getStock() < 5)
-                .sorted(Comparator.comparing(Producto::getStock))
-                .collect(Collectors.toList());
-        stats.put("productosStockCritico", productosStockCritico);
+        stats.put("productosMasCaros", repository.findTop5ByOrderByPrecioDescIdAsc());
+        stats.put("productosMasStock", repository.findTop5ByOrderByStockDescIdAsc());
+
+        return stats;
+    }
+
+    // Recorrido de las columnas primitivas; solo los productos de las listas se cargan por PK
+    Map<String, Object> calcularConColumnas(CatalogoColumnar columnar) {
+        CatalogoColumnar.Resumen resumen = columnar.resumen();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalProductos", (int) resumen.getTotalProductos());
+        stats.put("valorTotal", resumen.getValorTotal());
+        stats.put("productosActivos", resumen.getProductosActivos());
+        stats.put("productosPorCategoria", resumen.getProductosPorCategoria());
+        stats.put("stockPorCategoria", resumen.getStockPorCategoria());
 
+        Set<Integer> ids = new HashSet<>(resumen.getIdsMasCaros());
+        ids.addAll(resumen.getIdsMasStock());
+        Map<Integer, Producto> porId = new HashMap<>();
+        repository.findAllById(ids).forEach(p -> porId.put(p.getId(), p));
+        stats.put("productosMasCaros", enOrden(resumen.getIdsMasCaros(), porId));
+        stats.put("productosMasStock", enOrden(resumen.getIdsMasStock(), porId));
         return stats;
     }
+
+    private static List<Producto> enOrden(List<Integer> ids, Map<Integer, Producto> porId) {
+        List<Producto> productos = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Producto p = porId.get(id);
+            if (p != null) {
+                productos.add(p);
+            }
+        }
+        return productos;
+    }
+
+    // Cálculo completo sobre la lista de productos: una pasada, en paralelo con listas grandes
+    Map<String, Object> calcularConStreams() {
+        return AcumuladorEstadisticas.calcular(repository.findAll(), umbralParalelo);
+    }
 }
@@ -0,0 +1,131 @@
+package com.inventario.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.inventario.model.Producto;
+import com.inventario.repository.ProductoSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Exportación del catálogo en CSV o NDJSON con memoria constante.
+ *
+ * Las filas se leen con un cursor (fetch size configurable) y se escriben
+ * directo a la respuesta; cada entidad se separa del contexto de
+ * persistencia apenas se escribe, así que el heap no crece con el catálogo.
+ */
+@Service
+public class ExportacionService {
+
+    public static final String ENCABEZADO_CSV = "id,codigo,nombre,categoria,precio,stock,activo";
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${inventario.exportacion.fetch-size:1000}")
+    private int fetchSize;
+
+    @Transactional(readOnly = true)
+    public void exportarCsv(String buscar, String categoria, OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+        writer.write(ENCABEZADO_CSV);
+        writer.write('\n');
+        try (Stream<Producto> productos = consultar(buscar, categoria)) {
+            productos.forEach(p -> {
+                try {
+                    writer.write(String.valueOf(p.getId()));
+                    writer.write(',');
+                    writer.write(campoCsv(p.getCodigo()));
+                    writer.write(',');
+                    writer.write(campoCsv(p.getNombre()));
+                    writer.write(',');
+                    writer.write(campoCsv(p.getCategoria()));
+                    writer.write(',');
+                    writer.write(BigDecimal.valueOf(p.getPrecio()).toPlainString());
+                    writer.write(',');
+                    writer.write(String.valueOf(p.getStock()));
+                    writer.write(',');
+                    writer.write(String.valueOf(p.getActivo()));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(p);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    @Transactional(readOnly = true)
+    public void exportarNdjson(String buscar, String categoria, OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+        try (SequenceWriter json = objectMapper.writer().withRootValueSeparator("\n").writeValues(writer);
+             Stream<Producto> productos = consultar(buscar, categoria)) {
+            productos.forEach(p -> {
+                try {
+                    json.write(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(p);
+            });
+            writer.write('\n');
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Misma selección que buscarYFiltrar, ordenada por id, como cursor de solo lectura
+    private Stream<Producto> consultar(String buscar, String categoria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Producto> query = cb.createQuery(Producto.class);
+        Root<Producto> root = query.from(Producto.class);
+        Predicate filtro = ProductoSpecifications.filtros(buscar, categoria).toPredicate(root, query, cb);
+        if (filtro != null) {
+            query.where(filtro);
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        TypedQuery<Producto> typed = entityManager.createQuery(query);
+        typed.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        typed.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return typed.getResultStream();
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0 || valor.indexOf('\n') >= 0) {
+            return '"' + valor.replace("\"", "\"\"") + '"';
+        }
+        return valor;
+    }
+}
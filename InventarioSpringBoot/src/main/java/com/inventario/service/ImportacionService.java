@@ -0,0 +1,363 @@
+package com.inventario.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.model.Producto;
+import com.inventario.repository.ProductoRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de productos desde CSV o JSON.
+ *
+ * El archivo se lee fila por fila y se procesa en lotes de
+ * inventario.importacion.lote filas: validación, chequeo de códigos
+ * existentes con una sola consulta IN y un INSERT por lotes JDBC en una
+ * transacción. Nunca se tiene en memoria más de un lote.
+ */
+@Service
+public class ImportacionService {
+
+    private static final String INSERT =
+            "INSERT INTO productos (codigo, nombre, categoria, precio, stock, activo, version, actualizado_en, secuencia) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?)";
+
+    // Un campo entre comillas con saltos de línea no puede crecer más que esto (comilla sin cerrar)
+    private static final int MAXIMO_REGISTRO_CSV = 64 * 1024;
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private SecuenciaCambios secuencias;
+
+    @Autowired
+    private CachesProducto caches;
+
+    @Value("${inventario.importacion.lote:1000}")
+    private int tamanoLote;
+
+    // CSV con encabezado (codigo,nombre,categoria,precio,stock[,activo]) en cualquier orden
+    public ResultadoImportacion importarCsv(InputStream entrada) throws IOException {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        List<Fila> lote = new ArrayList<>(tamanoLote);
+
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String linea = lector.readLine();
+        if (linea == null) {
+            return resultado;
+        }
+        if (linea.startsWith("\uFEFF")) {
+            linea = linea.substring(1); // BOM de Excel
+        }
+        // Excel en español exporta con ';'
+        char separador = linea.indexOf(';') >= 0 && linea.indexOf(',') < 0 ? ';' : ',';
+        List<String> encabezado = separarCsv(linea, separador).stream()
+                .map(c -> c.trim().toLowerCase())
+                .collect(Collectors.toList());
+
+        long numero = 1;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.trim().isEmpty()) {
+                continue;
+            }
+            // Un campo entre comillas puede seguir en las líneas siguientes; la fila se reporta con su primera línea
+            long inicio = numero;
+            String registro = linea;
+            while (comillasAbiertas(registro)) {
+                String siguiente = lector.readLine();
+                if (siguiente == null || registro.length() > MAXIMO_REGISTRO_CSV) {
+                    resultado.filaLeida();
+                    resultado.error(inicio, null, "Comillas sin cerrar; no se importó desde esta línea");
+                    procesarLote(lote, resultado);
+                    return resultado;
+                }
+                numero++;
+                registro = registro + "\n" + siguiente;
+            }
+            List<String> valores = separarCsv(registro, separador);
+            Map<String, String> campos = new HashMap<>();
+            for (int i = 0; i < encabezado.size() && i < valores.size(); i++) {
+                campos.put(encabezado.get(i), valores.get(i));
+            }
+            agregar(new Fila(inicio, campos), lote, resultado);
+        }
+        procesarLote(lote, resultado);
+        return resultado;
+    }
+
+    // JSON: un arreglo de objetos o un objeto por línea (NDJSON)
+    public ResultadoImportacion importarJson(InputStream entrada) throws IOException {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        List<Fila> lote = new ArrayList<>(tamanoLote);
+
+        try (MappingIterator<Map<String, Object>> it = objectMapper
+                .readerFor(new TypeReference<Map<String, Object>>() {})
+                .readValues(entrada)) {
+            long numero = 0;
+            while (it.hasNextValue()) {
+                numero++;
+                Map<String, String> campos = new HashMap<>();
+                it.nextValue().forEach((k, v) -> campos.put(k.toLowerCase(), v != null ? String.valueOf(v) : null));
+                agregar(new Fila(numero, campos), lote, resultado);
+            }
+        }
+        procesarLote(lote, resultado);
+        return resultado;
+    }
+
+    private void agregar(Fila fila, List<Fila> lote, ResultadoImportacion resultado) {
+        resultado.filaLeida();
+        String error = fila.convertir(validator);
+        if (error != null) {
+            resultado.error(fila.linea, fila.campos.get("codigo"), error);
+            return;
+        }
+        lote.add(fila);
+        if (lote.size() >= tamanoLote) {
+            procesarLote(lote, resultado);
+        }
+    }
+
+    private void procesarLote(List<Fila> lote, ResultadoImportacion resultado) {
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        // Códigos repetidos dentro del lote; los de lotes anteriores ya están en la BD
+        Map<String, Fila> porCodigo = new LinkedHashMap<>();
+        for (Fila fila : lote) {
+            if (porCodigo.putIfAbsent(fila.producto.getCodigo(), fila) != null) {
+                resultado.error(fila.linea, fila.producto.getCodigo(), "Código duplicado en el archivo");
+            }
+        }
+
+        Set<String> existentes = new HashSet<>(repository.findCodigosExistentes(porCodigo.keySet()));
+        List<Fila> nuevas = new ArrayList<>(porCodigo.size());
+        for (Fila fila : porCodigo.values()) {
+            if (existentes.contains(fila.producto.getCodigo())) {
+                resultado.error(fila.linea, fila.producto.getCodigo(), "Código ya existe");
+            } else {
+                nuevas.add(fila);
+            }
+        }
+
+        List<Producto> insertados;
+        try {
+            insertados = transactionTemplate.execute(status -> insertarLote(nuevas));
+        } catch (DataAccessException e) {
+            // Otro proceso insertó alguno de los códigos entre la consulta y el INSERT:
+            // reintentar fila por fila para atribuir el error a la fila correcta
+            insertados = new ArrayList<>();
+            for (Fila fila : nuevas) {
+                try {
+                    insertados.addAll(transactionTemplate.execute(status -> insertarLote(List.of(fila))));
+                } catch (DataAccessException ex) {
+                    resultado.error(fila.linea, fila.producto.getCodigo(), "No se pudo insertar: " +
+                            ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        resultado.insertados(insertados.size());
+        // Un lote de eventos por lote insertado: listados y fragmentos se limpian una vez
+        List<Producto> creados = insertados;
+        caches.enLote(() -> creados.forEach(p -> eventos.publishEvent(ProductoEvento.creado(p))));
+        lote.clear();
+    }
+
+    private List<Producto> insertarLote(List<Fila> filas) {
+        if (filas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Fila fila : filas) {
+            fila.producto.setVersion(0L);
+            fila.producto.setActualizadoEn(ahora);
+            fila.producto.setSecuencia(0L);
+        }
+        KeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Producto p = filas.get(i).producto;
+                        ps.setString(1, p.getCodigo());
+                        ps.setString(2, p.getNombre());
+                        ps.setString(3, p.getCategoria());
+                        ps.setDouble(4, p.getPrecio());
+                        ps.setInt(5, p.getStock());
+                        ps.setBoolean(6, p.getActivo());
+                        ps.setTimestamp(7, Timestamp.valueOf(p.getActualizadoEn()));
+                        ps.setLong(8, p.getSecuencia());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filas.size();
+                    }
+                },
+                claves);
+
+        List<Map<String, Object>> ids = claves.getKeyList();
+        List<Producto> productos = new ArrayList<>(filas.size());
+        for (int i = 0; i < filas.size(); i++) {
+            Producto p = filas.get(i).producto;
+            if (i < ids.size()) {
+                p.setId(((Number) ids.get(i).values().iterator().next()).intValue());
+            }
+            productos.add(p);
+        }
+
+        // Secuencias al final, con el lote ya insertado.
+        // asignar() reparte el bloque en orden de id
+        List<Producto> conId = new ArrayList<>(productos.size());
+        for (Producto p : productos) {
+            if (p.getId() != null) {
+                conId.add(p);
+            }
+        }
+        conId.sort(Comparator.comparing(Producto::getId));
+        long secuencia = secuencias.asignar(conId.stream().map(Producto::getId).toList()) - conId.size();
+        for (Producto p : conId) {
+            p.setSecuencia(++secuencia);
+        }
+        return productos;
+    }
+
+    // Cantidad impar de comillas: un campo quedó abierto ("" escapada suma dos)
+    static boolean comillasAbiertas(String registro) {
+        boolean abiertas = false;
+        for (int i = 0; i < registro.length(); i++) {
+            if (registro.charAt(i) == '"') {
+                abiertas = !abiertas;
+            }
+        }
+        return abiertas;
+    }
+
+    // Separa un registro CSV respetando comillas dobles ("a,b" y "" como comilla escapada)
+    static List<String> separarCsv(String linea, char separador) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+
+    /**
+     * Una fila del archivo: los campos crudos y el producto ya validado.
+     */
+    private static class Fila {
+
+        private final long linea;
+        private final Map<String, String> campos;
+        private Producto producto;
+
+        Fila(long linea, Map<String, String> campos) {
+            this.linea = linea;
+            this.campos = campos;
+        }
+
+        // Devuelve el mensaje de error o null si la fila es válida
+        String convertir(Validator validator) {
+            Producto p = new Producto();
+            p.setCodigo(texto("codigo"));
+            p.setNombre(texto("nombre"));
+            p.setCategoria(texto("categoria"));
+            try {
+                String precio = texto("precio");
+                p.setPrecio(precio != null ? Double.valueOf(precio) : null);
+            } catch (NumberFormatException e) {
+                return "Precio inválido";
+            }
+            try {
+                String stock = texto("stock");
+                p.setStock(stock != null ? Integer.valueOf(stock) : null);
+            } catch (NumberFormatException e) {
+                return "Stock inválido";
+            }
+            String activo = texto("activo");
+            p.setActivo(activo == null || Boolean.parseBoolean(activo) || activo.equals("1"));
+
+            Set<ConstraintViolation<Producto>> violaciones = validator.validate(p);
+            if (!violaciones.isEmpty()) {
+                return violaciones.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+            }
+            producto = p;
+            return null;
+        }
+
+        private String texto(String campo) {
+            String valor = campos.get(campo);
+            if (valor == null || valor.trim().isEmpty()) {
+                return null;
+            }
+            return valor.trim();
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para la búsqueda del listado.
+ *
+ * Indexa los trigramas de codigo y nombre (en minúsculas y sin tildes) y
+ * la categoría de cada producto. Una búsqueda intersecta las listas de
+ * postings empezando por la más corta, verifica los candidatos con
+ * contains() y ordena por relevancia (código exacto, prefijo de código,
+ * prefijo de nombre, inicio de palabra, contenido) o por el orden pedido.
+ * Se mantiene al día con cada ProductoEvento.
+ */
+@Component
+@ConditionalOnProperty(name = "inventario.busqueda.indice.habilitado", havingValue = "true")
+public class IndiceBusqueda {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceBusqueda.class);
+
+    private static final int LOTE_CARGA = 1000;
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Value("${inventario.busqueda.indice.max-resultados:10000}")
+    private int maxResultados;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Documento> documentos = new HashMap<>();
+    private final Map<Long, Postings> trigramas = new HashMap<>();
+    private final Map<String, Postings> categorias = new HashMap<>();
+    private volatile boolean listo;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            documentos.clear();
+            trigramas.clear();
+            categorias.clear();
+            int ultimoId = 0;
+            Slice<Producto> lote;
+            do {
+                lote = repository.findByIdGreaterThanOrderByIdAsc(ultimoId, PageRequest.of(0, LOTE_CARGA));
+                for (Producto p : lote) {
+                    agregar(p);
+                    ultimoId = p.getId();
+                }
+            } while (lote.hasNext());
+            listo = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de búsqueda construido: {} productos, {} trigramas en {} ms",
+                documentos.size(), trigramas.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @EventListener
+    public void aplicar(ProductoEvento evento) {
+        lock.writeLock().lock();
+        try {
+            if (evento.getAnterior() != null) {
+                quitar(evento.getAnterior().getId());
+            }
+            if (evento.getActual() != null) {
+                agregar(evento.getActual());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    /**
+     * Ids de los productos cuyo código o nombre contienen el texto, filtrados
+     * por categoría (opcional) y ordenados por relevancia o por "ordenar"
+     * (mismos valores que el listado). Como máximo max-resultados ids; el
+     * total de coincidencias va aparte.
+     */
+    public Resultado buscar(String texto, String categoria, String ordenar) {
+        String consulta = normalizar(texto.trim());
+        boolean filtrarCategoria = categoria != null && !categoria.trim().isEmpty() && !categoria.equals("Todas");
+
+        lock.readLock().lock();
+        try {
+            List<Postings> listas = new ArrayList<>();
+            if (filtrarCategoria) {
+                Postings porCategoria = categorias.get(categoria);
+                if (porCategoria == null) {
+                    return Resultado.VACIO;
+                }
+                listas.add(porCategoria);
+            }
+            for (long trigrama : trigramasDe(consulta)) {
+                Postings postings = trigramas.get(trigrama);
+                if (postings == null) {
+                    return Resultado.VACIO;
+                }
+                listas.add(postings);
+            }
+
+            List<Coincidencia> coincidencias = new ArrayList<>();
+            if (listas.isEmpty()) {
+                // Consulta de 1-2 caracteres sin categoría: recorrer los documentos
+                for (Documento doc : documentos.values()) {
+                    int puntaje = doc.puntaje(consulta);
+                    if (puntaje > 0) {
+                        coincidencias.add(new Coincidencia(doc, puntaje));
+                    }
+                }
+            } else {
+                listas.sort(Comparator.comparingInt(p -> p.tamano));
+                Postings menor = listas.get(0);
+                candidatos:
+                for (int i = 0; i < menor.tamano; i++) {
+                    int id = menor.ids[i];
+                    for (int j = 1; j < listas.size(); j++) {
+                        if (!listas.get(j).contiene(id)) {
+                            continue candidatos;
+                        }
+                    }
+                    Documento doc = documentos.get(id);
+                    int puntaje = doc.puntaje(consulta);
+                    if (puntaje > 0) {
+                        coincidencias.add(new Coincidencia(doc, puntaje));
+                    }
+                }
+            }
+
+            coincidencias.sort(orden(ordenar));
+            List<Integer> ids = new ArrayList<>(Math.min(coincidencias.size(), maxResultados));
+            for (int i = 0; i < coincidencias.size() && i < maxResultados; i++) {
+                ids.add(coincidencias.get(i).documento.id);
+            }
+            return new Resultado(ids, coincidencias.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Minúsculas y sin tildes: "Teléfono" -> "telefono"
+    static String normalizar(String texto) {
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    private void agregar(Producto p) {
+        Documento doc = new Documento(p);
+        documentos.put(doc.id, doc);
+        for (long trigrama : doc.trigramas()) {
+            trigramas.computeIfAbsent(trigrama, t -> new Postings()).agregar(doc.id);
+        }
+        if (doc.categoria != null) {
+            categorias.computeIfAbsent(doc.categoria, c -> new Postings()).agregar(doc.id);
+        }
+    }
+
+    private void quitar(Integer id) {
+        Documento doc = documentos.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (long trigrama : doc.trigramas()) {
+            Postings postings = trigramas.get(trigrama);
+            if (postings != null && postings.quitar(id) && postings.tamano == 0) {
+                trigramas.remove(trigrama);
+            }
+        }
+        if (doc.categoria != null) {
+            Postings postings = categorias.get(doc.categoria);
+            if (postings != null && postings.quitar(id) && postings.tamano == 0) {
+                categorias.remove(doc.categoria);
+            }
+        }
+    }
+
+    private static Set<Long> trigramasDe(String texto) {
+        Set<Long> resultado = new HashSet<>();
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            resultado.add(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+        }
+        return resultado;
+    }
+
+    private static Comparator<Coincidencia> orden(String ordenar) {
+        Comparator<Coincidencia> porId = Comparator.comparingInt(c -> c.documento.id);
+        if (ordenar == null) {
+            ordenar = "";
+        }
+        switch (ordenar) {
+            case "nombre":
+                return Comparator.<Coincidencia, String>comparing(c -> c.documento.nombre).thenComparing(porId);
+            case "precio_asc":
+                return Comparator.<Coincidencia>comparingDouble(c -> c.documento.precio).thenComparing(porId);
+            case "precio_desc":
+                return Comparator.<Coincidencia>comparingDouble(c -> -c.documento.precio).thenComparing(porId);
+            case "stock_asc":
+                return Comparator.<Coincidencia>comparingInt(c -> c.documento.stock).thenComparing(porId);
+            case "stock_desc":
+                return Comparator.<Coincidencia>comparingInt(c -> -c.documento.stock).thenComparing(porId);
+            default:
+                // Sin orden explícito: más relevantes primero
+                return Comparator.<Coincidencia>comparingInt(c -> -c.puntaje).thenComparing(porId);
+        }
+    }
+
+    private static final class Documento {
+
+        private final int id;
+        private final String nombre;
+        private final String categoria;
+        private final double precio;
+        private final int stock;
+        private final String codigoNormalizado;
+        private final String nombreNormalizado;
+
+        Documento(Producto p) {
+            this.id = p.getId();
+            this.nombre = p.getNombre();
+            this.categoria = p.getCategoria();
+            this.precio = p.getPrecio() != null ? p.getPrecio() : 0;
+            this.stock = p.getStock() != null ? p.getStock() : 0;
+            this.codigoNormalizado = normalizar(p.getCodigo());
+            this.nombreNormalizado = normalizar(p.getNombre());
+        }
+
+        Set<Long> trigramas() {
+            Set<Long> resultado = trigramasDe(codigoNormalizado);
+            resultado.addAll(trigramasDe(nombreNormalizado));
+            return resultado;
+        }
+
+        // 0 si no coincide
+        int puntaje(String consulta) {
+            if (codigoNormalizado.equals(consulta)) {
+                return 100;
+            }
+            if (codigoNormalizado.startsWith(consulta)) {
+                return 80;
+            }
+            if (nombreNormalizado.startsWith(consulta)) {
+                return 60;
+            }
+            if (nombreNormalizado.contains(" " + consulta)) {
+                return 40;
+            }
+            if (codigoNormalizado.contains(consulta) || nombreNormalizado.contains(consulta)) {
+                return 20;
+            }
+            return 0;
+        }
+    }
+
+    private static final class Coincidencia {
+
+        private final Documento documento;
+        private final int puntaje;
+
+        Coincidencia(Documento documento, int puntaje) {
+            this.documento = documento;
+            this.puntaje = puntaje;
+        }
+    }
+
+    /**
+     * Lista de ids ordenada en un int[] (sin boxing); inserción y borrado
+     * por búsqueda binaria.
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int tamano;
+
+        void agregar(int id) {
+            int i = Arrays.binarySearch(ids, 0, tamano, id);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            System.arraycopy(ids, i, ids, i + 1, tamano - i);
+            ids[i] = id;
+            tamano++;
+        }
+
+        boolean quitar(int id) {
+            int i = Arrays.binarySearch(ids, 0, tamano, id);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(ids, i + 1, ids, i, tamano - i - 1);
+            tamano--;
+            return true;
+        }
+
+        boolean contiene(int id) {
+            return Arrays.binarySearch(ids, 0, tamano, id) >= 0;
+        }
+    }
+
+    public static final class Resultado {
+
+        static final Resultado VACIO = new Resultado(Collections.emptyList(), 0);
+
+        private final List<Integer> ids;
+        private final int total;
+
+        Resultado(List<Integer> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        // Los primeros max-resultados, en orden
+        public List<Integer> getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        // false si hubo más coincidencias que max-resultados
+        public boolean isCompleto() {
+            return ids.size() == total;
+        }
+    }
+}
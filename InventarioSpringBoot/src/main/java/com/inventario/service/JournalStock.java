@@ -0,0 +1,125 @@
+package com.inventario.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Journal local de movimientos de stock, dividido en segmentos numerados.
+ *
+ * Cada movimiento es un registro de 8 bytes (id, delta) escrito con una
+ * llamada write() antes de confirmarlo al cliente, así que sobrevive a una
+ * caída del proceso; con fsyncPorEscritura también a una caída del equipo.
+ * Un segmento se cierra al volcarlo y se borra cuando sus movimientos ya
+ * están en la base de datos. No es thread-safe: AcumuladorStock lo usa bajo
+ * su propio lock.
+ */
+class JournalStock {
+
+    private static final int TAMANO_REGISTRO = 8;
+    private static final String PREFIJO = "stock-";
+    private static final String SUFIJO = ".journal";
+
+    private final Path directorio;
+    private final boolean fsyncPorEscritura;
+
+    private FileChannel canal;
+    private long segmento;
+    private int registros;
+
+    JournalStock(Path directorio, boolean fsyncPorEscritura) throws IOException {
+        this.directorio = directorio;
+        this.fsyncPorEscritura = fsyncPorEscritura;
+        Files.createDirectories(directorio);
+    }
+
+    // Segmentos existentes en disco, en orden
+    List<Long> segmentos() throws IOException {
+        List<Long> numeros = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(PREFIJO) && n.endsWith(SUFIJO))
+                    .forEach(n -> numeros.add(Long.parseLong(n.substring(PREFIJO.length(), n.length() - SUFIJO.length()))));
+        }
+        numeros.sort(null);
+        return numeros;
+    }
+
+    // Suma de deltas por producto de un segmento cerrado (ignora un registro final incompleto)
+    Map<Integer, Integer> leer(long numero) throws IOException {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(archivo(numero)));
+        while (buffer.remaining() >= TAMANO_REGISTRO) {
+            deltas.merge(buffer.getInt(), buffer.getInt(), Integer::sum);
+        }
+        return deltas;
+    }
+
+    void abrir(long numero) throws IOException {
+        canal = FileChannel.open(archivo(numero), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmento = numero;
+        registros = 0;
+    }
+
+    // Escribe todos los movimientos de una reserva con un solo write()
+    void escribir(int[] productoIds, int[] deltas) {
+        ByteBuffer registro = ByteBuffer.allocate(TAMANO_REGISTRO * productoIds.length);
+        for (int i = 0; i < productoIds.length; i++) {
+            registro.putInt(productoIds[i]).putInt(deltas[i]);
+        }
+        registro.flip();
+        try {
+            while (registro.hasRemaining()) {
+                canal.write(registro);
+            }
+            if (fsyncPorEscritura) {
+                canal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el journal de stock", e);
+        }
+        registros += productoIds.length;
+    }
+
+    // Cierra el segmento actual (con fsync) y abre el siguiente; devuelve el número del cerrado
+    long rotar() throws IOException {
+        long cerrado = segmento;
+        canal.force(false);
+        canal.close();
+        abrir(cerrado + 1);
+        return cerrado;
+    }
+
+    void borrar(long numero) throws IOException {
+        Files.deleteIfExists(archivo(numero));
+    }
+
+    void cerrar() throws IOException {
+        if (canal != null) {
+            canal.force(false);
+            canal.close();
+        }
+    }
+
+    long segmentoActual() {
+        return segmento;
+    }
+
+    int registros() {
+        return registros;
+    }
+
+    private Path archivo(long numero) {
+        return directorio.resolve(String.format("%s%012d%s", PREFIJO, numero, SUFIJO));
+    }
+}
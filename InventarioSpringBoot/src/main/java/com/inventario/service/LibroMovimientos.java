@@ -0,0 +1,417 @@
+package com.inventario.service;
+
+import com.inventario.model.InstantaneaStock;
+import com.inventario.model.MovimientoDiario;
+import com.inventario.model.MovimientoStock;
+import com.inventario.model.Producto;
+import com.inventario.repository.InstantaneaStockRepository;
+import com.inventario.repository.MovimientoDiarioRepository;
+import com.inventario.repository.MovimientoStockRepository;
+import com.inventario.repository.SaldoProducto;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Libro de movimientos de stock (solo inserción).
+ *
+ * Cada ProductoEvento que cambia el stock se anota como ENTRADA o SALIDA
+ * (ajustarStock, reservas) o AJUSTE (altas, bajas y ediciones), con el
+ * usuario autenticado que lo hizo. Con write-behind el evento llega desde el
+ * volcado del AcumuladorStock y trae las reservas que lo componen: se anota
+ * una fila por reserva con su usuario y su fecha, no el neto del volcado
+ * (los segmentos reaplicados al arrancar no guardan usuario: van como
+ * "sistema"). Los movimientos se acumulan en memoria y
+ * se insertan por lotes cada inventario.movimientos.intervalo-ms, junto con
+ * los acumulados por día y categoría (movimientos_diarios). Periódicamente
+ * se toma una instantánea del stock de los productos que se movieron, así
+ * el stock en una fecha es la última instantánea más la cola del libro y
+ * ningún reporte recorre el historial completo. El stock vigente sigue
+ * siendo productos.stock; el libro es el historial.
+ *
+ * Un movimiento puede no llegar al libro (cola en memoria perdida si el
+ * proceso cae, o un evento que nunca se publicó). Por eso cada instantánea
+ * se concilia con productos.stock: si el libro y la tabla difieren en un
+ * producto sin escrituras en los últimos
+ * inventario.movimientos.margen-conciliacion-s, se anota un AJUSTE del
+ * usuario "sistema" por la diferencia y la instantánea queda en el stock real.
+ */
+@Component
+@Lazy(false)
+public class LibroMovimientos {
+
+    private static final Logger log = LoggerFactory.getLogger(LibroMovimientos.class);
+
+    static final String SIN_CATEGORIA = "Sin categoría";
+    static final String USUARIO_SISTEMA = "sistema";
+
+    private static final String INSERTAR_MOVIMIENTO = "INSERT INTO movimientos_stock " +
+            "(producto_id, codigo, categoria, tipo, cantidad, usuario, fecha) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SUMAR_DIARIO = "UPDATE movimientos_diarios " +
+            "SET movimientos = movimientos + ?, unidades = unidades + ? WHERE dia = ? AND categoria = ? AND tipo = ?";
+    private static final String INSERTAR_DIARIO = "INSERT INTO movimientos_diarios " +
+            "(dia, categoria, tipo, movimientos, unidades) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERTAR_INSTANTANEA = "INSERT INTO stock_instantaneas " +
+            "(producto_id, stock, hasta_movimiento, fecha, apertura) VALUES (?, ?, ?, ?, ?)";
+    private static final String APERTURA = "INSERT INTO stock_instantaneas " +
+            "(producto_id, stock, hasta_movimiento, fecha, apertura) SELECT id, stock, ?, ?, TRUE FROM productos";
+    private static final String PRODUCTOS_DESDE = "SELECT id, codigo, categoria, stock, actualizado_en " +
+            "FROM productos WHERE id > ? ORDER BY id LIMIT ?";
+
+    @Autowired
+    private MovimientoStockRepository movimientos;
+
+    @Autowired
+    private InstantaneaStockRepository instantaneas;
+
+    @Autowired
+    private MovimientoDiarioRepository diariosRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventario.movimientos.lote:1000}")
+    private int lote;
+
+    @Value("${inventario.movimientos.margen-conciliacion-s:60}")
+    private int margenConciliacion;
+
+    // Movimientos aún no volcados, en orden de llegada
+    private List<MovimientoStock> pendientes = new ArrayList<>();
+
+    // Volcado, instantáneas y consultas de stock en fecha no se solapan
+    private final ReentrantLock volcado = new ReentrantLock();
+
+    /**
+     * Instantánea de apertura la primera vez que arranca el libro. Los
+     * movimientos anotados antes de abrir ya están en productos.stock y por
+     * lo tanto en la apertura: se descartan. En los arranques siguientes
+     * (la apertura ya existe) no se descarta nada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void abrir() {
+        volcado.lock();
+        try {
+            if (!instantaneas.existsByAperturaTrue()) {
+                int productos;
+                synchronized (this) {
+                    productos = jdbcTemplate.update(APERTURA, movimientos.ultimoId(),
+                            Timestamp.valueOf(LocalDateTime.now()));
+                    pendientes = new ArrayList<>();
+                }
+                log.info("Libro de movimientos abierto con el stock de {} productos", productos);
+            }
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    // Anotar el movimiento que produjo una escritura confirmada (también la recuperación del AcumuladorStock)
+    @EventListener
+    public void anotar(ProductoEvento evento) {
+        Producto anterior = evento.getAnterior();
+        Producto actual = evento.getActual();
+        if (!evento.getDetalles().isEmpty()) {
+            anotarDetalles(actual != null ? actual : anterior, evento.getDetalles());
+            return;
+        }
+        int delta = stock(actual) - stock(anterior);
+        if (delta == 0) {
+            return;
+        }
+        MovimientoStock.Tipo tipo = !evento.isMovimientoStock() ? MovimientoStock.Tipo.AJUSTE
+                : delta > 0 ? MovimientoStock.Tipo.ENTRADA : MovimientoStock.Tipo.SALIDA;
+        Producto p = actual != null ? actual : anterior;
+        MovimientoStock movimiento = new MovimientoStock(p.getId(), p.getCodigo(), categoria(p), tipo, delta,
+                usuarioActual(), LocalDateTime.now());
+        synchronized (this) {
+            pendientes.add(movimiento);
+        }
+    }
+
+    // Volcado write-behind: una fila por reserva, con el usuario y la fecha de la reserva
+    private void anotarDetalles(Producto p, List<ProductoEvento.Detalle> detalles) {
+        List<MovimientoStock> anotados = new ArrayList<>(detalles.size());
+        for (ProductoEvento.Detalle d : detalles) {
+            if (d.getCantidad() == 0) {
+                continue;
+            }
+            MovimientoStock.Tipo tipo = d.isAjuste() ? MovimientoStock.Tipo.AJUSTE
+                    : d.getCantidad() > 0 ? MovimientoStock.Tipo.ENTRADA : MovimientoStock.Tipo.SALIDA;
+            anotados.add(new MovimientoStock(p.getId(), p.getCodigo(), categoria(p), tipo, d.getCantidad(),
+                    d.getUsuario(), d.getFecha()));
+        }
+        synchronized (this) {
+            pendientes.addAll(anotados);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        volcar();
+    }
+
+    // Inserta los movimientos pendientes y suma los acumulados diarios, todo en una transacción
+    @Scheduled(fixedDelayString = "${inventario.movimientos.intervalo-ms:1000}")
+    public void volcar() {
+        volcado.lock();
+        try {
+            List<MovimientoStock> tanda;
+            synchronized (this) {
+                if (pendientes.isEmpty()) {
+                    return;
+                }
+                tanda = pendientes;
+                pendientes = new ArrayList<>();
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    insertarMovimientos(tanda);
+                    sumarDiarios(tanda);
+                });
+                log.debug("Libro de movimientos: {} movimientos volcados", tanda.size());
+            } catch (RuntimeException e) {
+                // Vuelven al frente de la cola y salen en el próximo volcado
+                synchronized (this) {
+                    tanda.addAll(pendientes);
+                    pendientes = tanda;
+                }
+                log.error("No se pudieron volcar {} movimientos de stock, se reintentará", tanda.size(), e);
+            }
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    /**
+     * Instantánea incremental: para cada producto con movimientos desde el
+     * último corte, su última instantánea más la suma de esos movimientos
+     * (solo lee la cola del libro, id > último corte). Después recorre
+     * productos por lotes y concilia el libro con productos.stock (menos lo
+     * que sigue en la cola en memoria); los productos escritos dentro del
+     * margen se dejan para la próxima, sus eventos pueden estar en camino.
+     */
+    @Scheduled(cron = "${inventario.movimientos.instantanea-cron:0 0 * * * *}")
+    public void tomarInstantanea() {
+        volcar();
+        volcado.lock();
+        try {
+            long desde = instantaneas.ultimoCorte();
+            long hasta = movimientos.ultimoId();
+            LocalDateTime ahora = LocalDateTime.now();
+            LocalDateTime limite = ahora.minusSeconds(margenConciliacion);
+            Map<Integer, Integer> enCola = new HashMap<>();
+            synchronized (this) {
+                for (MovimientoStock m : pendientes) {
+                    enCola.merge(m.getProductoId(), m.getCantidad(), Integer::sum);
+                }
+            }
+            int[] resumen = transactionTemplate.execute(status -> {
+                Map<Integer, Long> saldos = new HashMap<>();
+                if (hasta > desde) {
+                    for (SaldoProducto saldo : movimientos.sumarPorProducto(desde, hasta)) {
+                        saldos.put(saldo.getProductoId(), saldo.getCantidad());
+                    }
+                }
+                List<Object[]> filas = new ArrayList<>(saldos.size());
+                List<MovimientoStock> ajustes = new ArrayList<>();
+                int ultimo = 0;
+                while (true) {
+                    List<Producto> tramo = jdbcTemplate.query(PRODUCTOS_DESDE, LibroMovimientos::fila, ultimo, lote);
+                    if (tramo.isEmpty()) {
+                        break;
+                    }
+                    List<Integer> ids = tramo.stream().map(Producto::getId).toList();
+                    Map<Integer, Integer> base = ultimas(ids);
+                    for (Producto p : tramo) {
+                        Long saldo = saldos.remove(p.getId());
+                        long enLibro = base.getOrDefault(p.getId(), 0) + (saldo != null ? saldo : 0);
+                        long real = stock(p) - enCola.getOrDefault(p.getId(), 0);
+                        boolean reciente = p.getActualizadoEn() != null && p.getActualizadoEn().isAfter(limite);
+                        if (real != enLibro && !reciente) {
+                            ajustes.add(new MovimientoStock(p.getId(), p.getCodigo(), categoria(p),
+                                    MovimientoStock.Tipo.AJUSTE, (int) (real - enLibro), USUARIO_SISTEMA, ahora));
+                            filas.add(new Object[]{p.getId(), real});
+                        } else if (saldo != null) {
+                            filas.add(new Object[]{p.getId(), enLibro});
+                        }
+                    }
+                    ultimo = ids.get(ids.size() - 1);
+                }
+                // Productos con movimientos que ya no existen: solo el libro
+                List<Integer> eliminados = new ArrayList<>(saldos.keySet());
+                for (int i = 0; i < eliminados.size(); i += lote) {
+                    List<Integer> ids = eliminados.subList(i, Math.min(i + lote, eliminados.size()));
+                    Map<Integer, Integer> base = ultimas(ids);
+                    for (Integer id : ids) {
+                        filas.add(new Object[]{id, base.getOrDefault(id, 0) + saldos.get(id)});
+                    }
+                }
+                // Los ajustes entran en esta instantánea: el corte pasa a ser el último de ellos
+                long corte = hasta;
+                if (!ajustes.isEmpty()) {
+                    insertarMovimientos(ajustes);
+                    sumarDiarios(ajustes);
+                    corte = movimientos.ultimoId();
+                }
+                Timestamp fecha = Timestamp.valueOf(ahora);
+                List<Object[]> instantanea = new ArrayList<>(filas.size());
+                for (Object[] fila : filas) {
+                    instantanea.add(new Object[]{fila[0], fila[1], corte, fecha, false});
+                }
+                for (int i = 0; i < instantanea.size(); i += lote) {
+                    jdbcTemplate.batchUpdate(INSERTAR_INSTANTANEA, instantanea.subList(i, Math.min(i + lote, instantanea.size())));
+                }
+                return new int[]{filas.size(), ajustes.size()};
+            });
+            if (resumen[1] > 0) {
+                log.warn("Libro de movimientos conciliado con productos.stock: {} productos con diferencias, " +
+                         "anotados como AJUSTE", resumen[1]);
+            }
+            if (resumen[0] > 0) {
+                log.info("Instantánea de stock: {} productos", resumen[0]);
+            }
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    // Stock de un producto en una fecha; vacío si el libro no tiene historial del producto hasta entonces
+    public Optional<StockEnFecha> stockEn(Integer productoId, LocalDateTime fecha) {
+        volcado.lock();
+        try {
+            Optional<InstantaneaStock> instantanea = instantaneas
+                    .findFirstByProductoIdAndFechaLessThanEqualOrderByHastaMovimientoDesc(productoId, fecha);
+            if (instantanea.isEmpty() && instantaneas.existsByProductoIdAndAperturaTrue(productoId)) {
+                return Optional.empty(); // fecha anterior a la apertura del libro
+            }
+            long desde = instantanea.map(InstantaneaStock::getHastaMovimiento).orElse(0L);
+            long stock = instantanea.map(InstantaneaStock::getStock).orElse(0)
+                    + movimientos.sumarDesde(productoId, desde, fecha);
+            boolean conMovimientos = instantanea.isPresent()
+                    || movimientos.existsByProductoIdAndFechaLessThanEqual(productoId, fecha);
+            synchronized (this) {
+                for (MovimientoStock m : pendientes) {
+                    if (m.getProductoId().equals(productoId) && !m.getFecha().isAfter(fecha)) {
+                        stock += m.getCantidad();
+                        conMovimientos = true;
+                    }
+                }
+            }
+            if (!conMovimientos) {
+                return Optional.empty();
+            }
+            return Optional.of(new StockEnFecha(productoId, fecha, (int) stock,
+                    instantanea.map(InstantaneaStock::getFecha).orElse(null)));
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    // Movimientos de un producto, del más reciente hacia atrás (antesDe: id del último ya leído)
+    public List<MovimientoStock> historial(Integer productoId, Long antesDe, int limite) {
+        return movimientos.findByProductoIdAndIdLessThanOrderByIdDesc(productoId,
+                antesDe != null ? antesDe : Long.MAX_VALUE, PageRequest.of(0, limite));
+    }
+
+    // Acumulados por día, categoría y tipo en un rango de días (categoría opcional)
+    public List<MovimientoDiario> diarios(LocalDate desde, LocalDate hasta, String categoria) {
+        if (categoria != null && !categoria.isBlank()) {
+            return diariosRepository.findByCategoriaAndDiaBetweenOrderByDiaAscTipoAsc(categoria, desde, hasta);
+        }
+        return diariosRepository.findByDiaBetweenOrderByDiaAscCategoriaAscTipoAsc(desde, hasta);
+    }
+
+    // Stock de la última instantánea de cada producto (sin instantánea: no está en el mapa)
+    private Map<Integer, Integer> ultimas(List<Integer> ids) {
+        Map<Integer, Integer> base = new HashMap<>();
+        for (InstantaneaStock s : instantaneas.findUltimas(ids)) {
+            base.put(s.getProductoId(), s.getStock());
+        }
+        return base;
+    }
+
+    private void insertarMovimientos(List<MovimientoStock> tanda) {
+        jdbcTemplate.batchUpdate(INSERTAR_MOVIMIENTO, tanda, lote, (ps, m) -> {
+            ps.setInt(1, m.getProductoId());
+            ps.setString(2, m.getCodigo());
+            ps.setString(3, m.getCategoria());
+            ps.setString(4, m.getTipo().name());
+            ps.setInt(5, m.getCantidad());
+            ps.setString(6, m.getUsuario());
+            ps.setTimestamp(7, Timestamp.valueOf(m.getFecha()));
+        });
+    }
+
+    // Una fila por (día, categoría, tipo) de la tanda: UPDATE y, si no existía, INSERT
+    private void sumarDiarios(List<MovimientoStock> tanda) {
+        Map<List<Object>, long[]> acumulados = new LinkedHashMap<>();
+        for (MovimientoStock m : tanda) {
+            List<Object> clave = List.of(m.getFecha().toLocalDate(), m.getCategoria(), m.getTipo().name());
+            long[] suma = acumulados.computeIfAbsent(clave, k -> new long[2]);
+            suma[0]++;
+            suma[1] += m.getCantidad();
+        }
+        acumulados.forEach((clave, suma) -> {
+            java.sql.Date dia = java.sql.Date.valueOf((LocalDate) clave.get(0));
+            int filas = jdbcTemplate.update(SUMAR_DIARIO, suma[0], suma[1], dia, clave.get(1), clave.get(2));
+            if (filas == 0) {
+                jdbcTemplate.update(INSERTAR_DIARIO, dia, clave.get(1), clave.get(2), suma[0], suma[1]);
+            }
+        });
+    }
+
+    private static int stock(Producto p) {
+        return p != null && p.getStock() != null ? p.getStock() : 0;
+    }
+
+    private static String categoria(Producto p) {
+        return p.getCategoria() != null && !p.getCategoria().isBlank() ? p.getCategoria() : SIN_CATEGORIA;
+    }
+
+    // Columnas de productos que usa la conciliación
+    private static Producto fila(ResultSet rs, int numero) throws SQLException {
+        Producto p = new Producto();
+        p.setId(rs.getInt("id"));
+        p.setCodigo(rs.getString("codigo"));
+        p.setCategoria(rs.getString("categoria"));
+        p.setStock(rs.getInt("stock"));
+        Timestamp actualizado = rs.getTimestamp("actualizado_en");
+        p.setActualizadoEn(actualizado != null ? actualizado.toLocalDateTime() : null);
+        return p;
+    }
+
+    // Usuario autenticado del hilo que hizo la escritura; "sistema" para tareas programadas y recuperaciones
+    static String usuarioActual() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return USUARIO_SISTEMA;
+        }
+        String nombre = auth.getName();
+        return nombre.length() > 50 ? nombre.substring(0, 50) : nombre;
+    }
+}
@@ -0,0 +1,267 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Operaciones masivas sobre productos seleccionados por id: activar o
+ * desactivar, cambiar de categoría, ajustar el precio en un porcentaje y
+ * eliminar.
+ *
+ * Toda la operación corre en una transacción (todo o nada). Los ids se
+ * procesan en lotes de inventario.operaciones-masivas.lote: se bloquean las
+ * filas del lote con un SELECT ... FOR UPDATE (estado anterior para los
+ * eventos) y se aplica un solo UPDATE o DELETE ... WHERE id IN (...). Las
+ * secuencias de cambio se piden una sola vez, como último paso: un bloque
+ * del tamaño de las filas afectadas (o de las lápidas de las bajas, en un
+ * INSERT por lotes JDBC), con todas las filas ya bloqueadas. Después del commit
+ * se publica un ProductoEvento por producto, igual que en ProductoService,
+ * para que cachés, agregados, índices y el libro de movimientos queden al día;
+ * se publican en un lote de CachesProducto, que limpia los listados una vez.
+ */
+@Service
+public class OperacionMasivaService {
+
+    private static final Logger log = LoggerFactory.getLogger(OperacionMasivaService.class);
+
+    private static final String INSERT_BAJA =
+            "INSERT INTO producto_bajas (producto_id, codigo, secuencia, eliminado_en) VALUES (?, ?, ?, ?)";
+
+    private static final double PRECIO_MINIMO = 1;
+    private static final double PRECIO_MAXIMO = 999999999;
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private SecuenciaCambios secuencias;
+
+    @Autowired
+    private CachesProducto caches;
+
+    @Value("${inventario.operaciones-masivas.lote:1000}")
+    private int tamanoLote;
+
+    @Value("${inventario.operaciones-masivas.maximo:100000}")
+    private int maximoIds;
+
+    // Activar o desactivar
+    public ResultadoOperacionMasiva cambiarActivo(Collection<Integer> ids, Boolean activo) throws Exception {
+        if (activo == null) {
+            throw new Exception("Debe indicar si los productos quedan activos o inactivos");
+        }
+        return actualizar(activo ? "activar" : "desactivar", ids, null,
+                lote -> repository.cambiarActivoLote(lote, activo));
+    }
+
+    // Mover a otra categoría
+    public ResultadoOperacionMasiva cambiarCategoria(Collection<Integer> ids, String categoria) throws Exception {
+        if (categoria == null || categoria.trim().isEmpty()) {
+            throw new Exception("La categoría es obligatoria");
+        }
+        String nueva = categoria.trim();
+        if (nueva.length() > 50) {
+            throw new Exception("La categoría no puede exceder 50 caracteres");
+        }
+        return actualizar("categoria", ids, null,
+                lote -> repository.cambiarCategoriaLote(lote, nueva));
+    }
+
+    // Subir o bajar el precio un porcentaje (10 = +10 %, -15 = -15 %), redondeado a 2 decimales
+    public ResultadoOperacionMasiva ajustarPrecio(Collection<Integer> ids, Double porcentaje) throws Exception {
+        if (porcentaje == null || porcentaje.isNaN() || porcentaje.isInfinite()) {
+            throw new Exception("El porcentaje es obligatorio");
+        }
+        if (porcentaje <= -100) {
+            throw new Exception("El porcentaje debe ser mayor a -100");
+        }
+        double factor = 1 + porcentaje / 100;
+        // Si algún precio queda fuera de rango se rechaza toda la operación
+        return actualizar("precio", ids,
+                p -> {
+                    double nuevo = Math.round(p.getPrecio() * factor * 100) / 100.0;
+                    return nuevo < PRECIO_MINIMO || nuevo > PRECIO_MAXIMO
+                            ? "El precio del producto " + p.getId() + " quedaría en " + nuevo
+                              + ", fuera del rango permitido (1 a 999.999.999)"
+                            : null;
+                },
+                lote -> repository.ajustarPrecioLote(lote, factor));
+    }
+
+    // Eliminar (deja una lápida por producto para la sincronización incremental)
+    public ResultadoOperacionMasiva eliminar(Collection<Integer> ids) throws Exception {
+        List<Integer> ordenados = normalizar(ids);
+        ResultadoOperacionMasiva resultado = new ResultadoOperacionMasiva("eliminar", ordenados.size());
+        List<Producto> eliminados = new ArrayList<>(ordenados.size());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int desde = 0; desde < ordenados.size(); desde += tamanoLote) {
+                List<Integer> lote = ordenados.subList(desde, Math.min(desde + tamanoLote, ordenados.size()));
+                List<Producto> existentes = bloquear(lote, resultado);
+                if (existentes.isEmpty()) {
+                    continue;
+                }
+                resultado.afectados(repository.eliminarLote(ids(existentes)));
+                eliminados.addAll(existentes);
+            }
+            // Último paso: las lápidas piden sus secuencias con las filas ya borradas
+            insertarBajas(eliminados);
+        });
+
+        caches.enLote(() -> eliminados.forEach(p -> eventos.publishEvent(ProductoEvento.eliminado(p))));
+        log.info("Operación masiva eliminar: {} de {} productos", resultado.getAfectados(), resultado.getSolicitados());
+        return resultado;
+    }
+
+    private ResultadoOperacionMasiva actualizar(String operacion, Collection<Integer> ids,
+                                                Validacion validacion, ActualizacionLote actualizacion)
+            throws Exception {
+        List<Integer> ordenados = normalizar(ids);
+        ResultadoOperacionMasiva resultado = new ResultadoOperacionMasiva(operacion, ordenados.size());
+        List<Producto> anteriores = new ArrayList<>(ordenados.size());
+        List<Producto[]> cambios = new ArrayList<>(ordenados.size());
+
+        String[] rechazo = new String[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int desde = 0; desde < ordenados.size(); desde += tamanoLote) {
+                List<Integer> lote = ordenados.subList(desde, Math.min(desde + tamanoLote, ordenados.size()));
+                List<Producto> bloqueados = bloquear(lote, resultado);
+                if (bloqueados.isEmpty()) {
+                    continue;
+                }
+                if (validacion != null) {
+                    for (Producto p : bloqueados) {
+                        rechazo[0] = validacion.validar(p);
+                        if (rechazo[0] != null) {
+                            status.setRollbackOnly();
+                            return;
+                        }
+                    }
+                }
+                resultado.afectados(actualizacion.aplicar(ids(bloqueados)));
+                anteriores.addAll(bloqueados);
+            }
+            if (anteriores.isEmpty()) {
+                return;
+            }
+            // Última escritura: una secuencia por fila afectada, en orden de id (después solo se lee)
+            List<Integer> afectados = ids(anteriores);
+            secuencias.asignar(afectados);
+
+            // Los UPDATE limpiaron el contexto de persistencia: se leen los valores finales
+            Map<Integer, Producto> actuales = new HashMap<>();
+            for (int desde = 0; desde < afectados.size(); desde += tamanoLote) {
+                repository.findAllById(afectados.subList(desde, Math.min(desde + tamanoLote, afectados.size())))
+                        .forEach(p -> actuales.put(p.getId(), p));
+            }
+            for (Producto anterior : anteriores) {
+                Producto actual = actuales.get(anterior.getId());
+                if (actual != null) {
+                    cambios.add(new Producto[] { anterior, actual });
+                }
+            }
+        });
+        if (rechazo[0] != null) {
+            throw new Exception(rechazo[0]);
+        }
+
+        caches.enLote(() -> cambios.forEach(c -> eventos.publishEvent(ProductoEvento.actualizado(c[0], c[1]))));
+        log.info("Operación masiva {}: {} de {} productos", operacion, resultado.getAfectados(),
+                resultado.getSolicitados());
+        return resultado;
+    }
+
+    // Ids sin nulos ni repetidos, en orden ascendente (orden fijo de bloqueo, como en ProductoService.ajustarStock)
+    private List<Integer> normalizar(Collection<Integer> ids) throws Exception {
+        if (ids == null || ids.isEmpty()) {
+            throw new Exception("Debe seleccionar al menos un producto");
+        }
+        TreeSet<Integer> unicos = new TreeSet<>();
+        for (Integer id : ids) {
+            if (id != null) {
+                unicos.add(id);
+            }
+        }
+        if (unicos.isEmpty()) {
+            throw new Exception("Debe seleccionar al menos un producto");
+        }
+        if (unicos.size() > maximoIds) {
+            throw new Exception("No se pueden procesar más de " + maximoIds + " productos por operación");
+        }
+        return new ArrayList<>(unicos);
+    }
+
+    // Bloquea las filas existentes del lote y devuelve copias (estado anterior); anota los ids que no existen
+    private List<Producto> bloquear(List<Integer> lote, ResultadoOperacionMasiva resultado) {
+        List<Producto> filas = repository.bloquearPorIds(lote);
+        Set<Integer> encontrados = new HashSet<>(filas.size() * 2);
+        List<Producto> copias = new ArrayList<>(filas.size());
+        for (Producto p : filas) {
+            encontrados.add(p.getId());
+            copias.add(p.copiar());
+        }
+        if (encontrados.size() < lote.size()) {
+            for (Integer id : lote) {
+                if (!encontrados.contains(id)) {
+                    resultado.noEncontrado(id);
+                }
+            }
+        }
+        return copias;
+    }
+
+    private void insertarBajas(List<Producto> productos) {
+        if (productos.isEmpty()) {
+            return;
+        }
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        long primera = secuencias.reservar(productos.size()) - productos.size() + 1;
+        List<Object[]> filas = new ArrayList<>(productos.size());
+        for (int i = 0; i < productos.size(); i++) {
+            Producto p = productos.get(i);
+            filas.add(new Object[] { p.getId(), p.getCodigo(), primera + i, ahora });
+        }
+        jdbcTemplate.batchUpdate(INSERT_BAJA, filas);
+    }
+
+    private static List<Integer> ids(List<Producto> productos) {
+        List<Integer> ids = new ArrayList<>(productos.size());
+        for (Producto p : productos) {
+            ids.add(p.getId());
+        }
+        return ids;
+    }
+
+    // Mensaje de rechazo para un producto, o null si el cambio es válido
+    @FunctionalInterface
+    private interface Validacion {
+        String validar(Producto anterior);
+    }
+
+    // El UPDATE de un lote de ids existentes; devuelve las filas afectadas
+    @FunctionalInterface
+    private interface ActualizacionLote {
+        int aplicar(List<Integer> ids);
+    }
+}
@@ -0,0 +1,121 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Evento publicado por ProductoService después de cada escritura confirmada.
+ * Lleva copias del producto antes y después del cambio para que los
+ * consumidores (agregados, cachés, índices) puedan aplicar solo la diferencia.
+ */
+public class ProductoEvento {
+
+    public enum Tipo { CREADO, ACTUALIZADO, ELIMINADO }
+
+    private final Tipo tipo;
+    private final Producto anterior;
+    private final Producto actual;
+    private final boolean movimientoStock;
+    private final List<Detalle> detalles;
+
+    public ProductoEvento(Tipo tipo, Producto anterior, Producto actual) {
+        this(tipo, anterior, actual, false, Collections.emptyList());
+    }
+
+    private ProductoEvento(Tipo tipo, Producto anterior, Producto actual, boolean movimientoStock,
+                           List<Detalle> detalles) {
+        this.tipo = tipo;
+        this.anterior = anterior;
+        this.actual = actual;
+        this.movimientoStock = movimientoStock;
+        this.detalles = detalles;
+    }
+
+    public static ProductoEvento creado(Producto actual) {
+        return new ProductoEvento(Tipo.CREADO, null, actual.copiar());
+    }
+
+    public static ProductoEvento actualizado(Producto anterior, Producto actual) {
+        return new ProductoEvento(Tipo.ACTUALIZADO, anterior, actual.copiar());
+    }
+
+    // Entrada o salida de stock (ajustarStock, reservas), no una edición del producto
+    public static ProductoEvento movimiento(Producto anterior, Producto actual) {
+        return new ProductoEvento(Tipo.ACTUALIZADO, anterior, actual.copiar(), true, Collections.emptyList());
+    }
+
+    // Movimiento neto de un volcado del AcumuladorStock, con las reservas que lo componen
+    public static ProductoEvento movimiento(Producto anterior, Producto actual, List<Detalle> detalles) {
+        return new ProductoEvento(Tipo.ACTUALIZADO, anterior, actual.copiar(), true, List.copyOf(detalles));
+    }
+
+    public static ProductoEvento eliminado(Producto anterior) {
+        return new ProductoEvento(Tipo.ELIMINADO, anterior, null);
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    // null para CREADO
+    public Producto getAnterior() {
+        return anterior;
+    }
+
+    // null para ELIMINADO
+    public Producto getActual() {
+        return actual;
+    }
+
+    public boolean isMovimientoStock() {
+        return movimientoStock;
+    }
+
+    // Reservas que componen un movimiento volcado por el AcumuladorStock; vacía en los demás eventos
+    public List<Detalle> getDetalles() {
+        return detalles;
+    }
+
+    public Integer getId() {
+        return actual != null ? actual.getId() : anterior.getId();
+    }
+
+    /**
+     * Una reserva individual de un movimiento write-behind: cantidad, quién
+     * y cuándo la hizo. Ajuste si vino de fijar el stock (formulario de
+     * edición) y no de una entrada o salida.
+     */
+    public static final class Detalle {
+
+        private final int cantidad;
+        private final String usuario;
+        private final LocalDateTime fecha;
+        private final boolean ajuste;
+
+        public Detalle(int cantidad, String usuario, LocalDateTime fecha, boolean ajuste) {
+            this.cantidad = cantidad;
+            this.usuario = usuario;
+            this.fecha = fecha;
+            this.ajuste = ajuste;
+        }
+
+        public int getCantidad() {
+            return cantidad;
+        }
+
+        public String getUsuario() {
+            return usuario;
+        }
+
+        public LocalDateTime getFecha() {
+            return fecha;
+        }
+
+        public boolean isAjuste() {
+            return ajuste;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.inventario.service;
+
+/**
+ * El producto indicado no existe.
+ */
+public class ProductoNoEncontradoException extends Exception {
+
+    private final Integer productoId;
+
+    public ProductoNoEncontradoException(Integer productoId) {
+        super("Producto no encontrado: " + productoId);
+        this.productoId = productoId;
+    }
+
+    public Integer getProductoId() {
+        return productoId;
+    }
+}
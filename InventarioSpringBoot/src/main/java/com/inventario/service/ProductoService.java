@@ -1,72 +1,163 @@
 package com.inventario.service;
 
 import com.inventario.model.Producto;
+import com.inventario.model.ProductoBaja;
+import com.inventario.repository.ProductoBajaRepository;
 import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.ProductoSpecifications;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
 
 @Service
 public class ProductoService {
 
+    public static final int TAMANO_PAGINA_DEFECTO = 20;
+    public static final int TAMANO_MAXIMO_PAGINA = 200;
+
     @Autowired
     private ProductoRepository repository;
 
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CachesProducto caches;
+
+    @Autowired
+    private SecuenciaCambios secuencias;
+
+    @Autowired
+    private ProductoBajaRepository bajaRepository;
+
+    // Solo existe con inventario.stock.write-behind.habilitado=true
+    @Autowired
+    private ObjectProvider<AcumuladorStock> acumuladorStock;
+
+    // Solo existe con inventario.busqueda.indice.habilitado=true
+    @Autowired
+    private ObjectProvider<IndiceBusqueda> indiceBusqueda;
+
+    // Solo existe con inventario.catalogo.columnar.habilitado=true
+    @Autowired
+    private ObjectProvider<CatalogoColumnar> catalogoColumnar;
+
     // Listar todos
     public List<Producto> listarTodos() {
         return repository.findAll();
     }
 
-    // Buscar y filtrar productos
-    public List<Producto> buscarYFiltrar(String buscar, String categoria, String ordenar) {
-        List<Producto> productos = repository.findAll();
-
-        // Filtrar por búsqueda (código o nombre)
-        if (buscar != null && !buscar.trim().isEmpty()) {
-            String buscarLower = buscar.toLowerCase();
-            productos = productos.stream()
-                    .filter(p -> p.getCodigo().toLowerCase().contains(buscarLower) ||
-                               p.getNombre().toLowerCase().contains(buscarLower))
-                    .collect(java.util.stream.Collectors.toList());
-        }
-
-        // Filtrar por categoría
-        if (categoria != null && !categoria.trim().isEmpty() && !categoria.equals("Todas")) {
-            productos = productos.stream()
-                    .filter(p -> categoria.equals(p.getCategoria()))
-                    .collect(java.util.stream.Collectors.toList());
-        }
-
-        // Ordenar
-        if (ordenar != null && !ordenar.trim().isEmpty()) {
-            switch (ordenar) {
-                case "nombre":
-                    productos.sort(java.util.Comparator.comparing(Producto::getNombre));
-                    break;
-                case "precio_asc":
-                    productos.sort(java.util.Comparator.comparing(Producto::getPrecio));
-                    break;
-                case "precio_desc":
-                    productos.sort(java.util.Comparator.comparing(Producto::getPrecio).reversed());
-                    break;
-                case "stock_asc":
-                    productos.sort(java.util.Comparator.comparing(Producto::getStock));
-                    break;
-                case "stock_desc":
-                    productos.sort(java.util.Comparator.comparing(Producto::getStock).reversed());
-                    break;
-                default:
-                    productos.sort(java.util.Comparator.comparing(Producto::getId));
+    // Buscar y filtrar productos (paginado en la base de datos)
+    public Page<Producto> buscarYFiltrar(String buscar, String categoria, String ordenar,
+                                         int pagina, int tamano) {
+        int tamanoValido = Math.min(Math.max(tamano, 1), TAMANO_MAXIMO_PAGINA);
+        Pageable pageable = PageRequest.of(Math.max(pagina, 0), tamanoValido, ordenPara(ordenar));
+
+        Page<Producto> resultado = null;
+        boolean conTexto = buscar != null && !buscar.trim().isEmpty();
+        IndiceBusqueda indice = indiceBusqueda.getIfAvailable();
+        CatalogoColumnar columnar = catalogoColumnar.getIfAvailable();
+        if (indice != null && indice.isListo() && conTexto) {
+            // null con más coincidencias que max-resultados: la BD da el total y todas las páginas
+            resultado = buscarConIndice(indice, buscar, categoria, ordenar, pageable);
+        } else if (columnar != null && columnar.isListo() && !conTexto && CatalogoColumnar.soportaOrden(ordenar)) {
+            CatalogoColumnar.Pagina ids = columnar.pagina(categoria, ordenar,
+                    (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE), pageable.getPageSize());
+            resultado = cargarPagina(ids.getIds(), pageable, ids.getTotal());
+        }
+        if (resultado == null) {
+            Specification<Producto> spec = ProductoSpecifications.filtros(buscar, categoria);
+            String clave = caches.version() + "|" + buscar + "|" + categoria + "|" + ordenar + "|" + pageable.getPageNumber() + "|" + tamanoValido;
+            resultado = caches.listados().get(clave, () -> repository.findAll(spec, pageable));
+        }
+
+        // Con write-behind, mostrar el stock incluyendo los movimientos aún no volcados
+        AcumuladorStock acumulador = acumuladorStock.getIfAvailable();
+        return acumulador != null ? resultado.map(acumulador::conStockDisponible) : resultado;
+    }
+
+    // El índice resuelve y ordena los ids; la BD solo carga por PK los de la página pedida.
+    // null si el índice truncó el resultado (el total y las páginas siguientes serían incorrectos)
+    private Page<Producto> buscarConIndice(IndiceBusqueda indice, String buscar, String categoria,
+                                           String ordenar, Pageable pageable) {
+        IndiceBusqueda.Resultado encontrados = indice.buscar(buscar, categoria, ordenar);
+        if (!encontrados.isCompleto()) {
+            return null;
+        }
+        List<Integer> ids = encontrados.getIds();
+        int desde = (int) Math.min(pageable.getOffset(), ids.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), ids.size());
+        return cargarPagina(ids.subList(desde, hasta), pageable, ids.size());
+    }
+
+    // Cargar por PK los productos de una página ya resuelta, en el orden de los ids
+    private Page<Producto> cargarPagina(List<Integer> idsPagina, Pageable pageable, long total) {
+        Map<Integer, Producto> porId = new HashMap<>();
+        repository.findAllById(idsPagina).forEach(p -> porId.put(p.getId(), p));
+        List<Producto> contenido = new ArrayList<>(idsPagina.size());
+        for (Integer id : idsPagina) {
+            Producto p = porId.get(id);
+            if (p != null) {
+                contenido.add(p);
             }
         }
+        return new PageImpl<>(contenido, pageable, total);
+    }
 
-        return productos;
+    // Traducir el parámetro "ordenar" a un Sort; el id desempata para que las páginas sean estables
+    static Sort ordenPara(String ordenar) {
+        Sort porId = Sort.by(Sort.Direction.ASC, "id");
+        if (ordenar == null || ordenar.trim().isEmpty()) {
+            return porId;
+        }
+        switch (ordenar) {
+            case "nombre":
+                return Sort.by(Sort.Direction.ASC, "nombre").and(porId);
+            case "precio_asc":
+                return Sort.by(Sort.Direction.ASC, "precio").and(porId);
+            case "precio_desc":
+                return Sort.by(Sort.Direction.DESC, "precio").and(porId);
+            case "stock_asc":
+                return Sort.by(Sort.Direction.ASC, "stock").and(porId);
+            case "stock_desc":
+                return Sort.by(Sort.Direction.DESC, "stock").and(porId);
+            default:
+                return porId;
+        }
     }
 
-    // Obtener por ID
+    // Obtener por ID. La caché guarda la fila; el stock no volcado se superpone al leer, como en el listado
     public Optional<Producto> obtenerPorId(Integer id) {
-        return repository.findById(id);
+        return conStockDisponible(caches.porId().get(id, () -> repository.findById(id)));
+    }
+
+    // Obtener por código
+    public Optional<Producto> obtenerPorCodigo(String codigo) {
+        return conStockDisponible(caches.porCodigo().get(codigo, () -> repository.findByCodigo(codigo)));
+    }
+
+    private Optional<Producto> conStockDisponible(Optional<Producto> producto) {
+        AcumuladorStock acumulador = acumuladorStock.getIfAvailable();
+        return acumulador != null ? producto.map(acumulador::conStockDisponible) : producto;
     }
 
     // Crear
@@ -87,32 +178,142 @@ public class ProductoService {
             throw new Exception("Código ya existe");
         }
 
-        return repository.save(p);
+        Producto creado = transactionTemplate.execute(status -> {
+            Producto guardado = repository.save(p);
+            guardado.setSecuencia(secuencias.asignar(guardado.getId()));
+            return guardado;
+        });
+        eventos.publishEvent(ProductoEvento.creado(creado));
+        return creado;
     }
 
-    // Actualizar
+    // Actualizar (los campos nulos se conservan)
     public Producto actualizar(Integer id, Producto p) throws Exception {
-        Optional<Producto> existente = repository.findById(id);
-        if (!existente.isPresent()) {
+        return actualizar(id, p, false);
+    }
+
+    // Actualizar; con reemplazarUmbral un umbral de reorden nulo vuelve al de la categoría (formulario completo)
+    public Producto actualizar(Integer id, Producto p, boolean reemplazarUmbral) throws Exception {
+        // Con write-behind el stock se fija en el acumulador, no con la fila (no pisa reservas confirmadas)
+        AcumuladorStock acumulador = acumuladorStock.getIfAvailable();
+        boolean fijarStock = acumulador == null;
+        Producto[] anterior = new Producto[1];
+        Producto actualizado = transactionTemplate.execute(status -> {
+            Optional<Producto> existente = repository.findById(id);
+            if (!existente.isPresent()) {
+                return null;
+            }
+
+            Producto producto = existente.get();
+            anterior[0] = producto.copiar();
+            // No actualizar el código (es único e inmutable)
+            if (p.getNombre() != null) producto.setNombre(p.getNombre());
+            if (p.getCategoria() != null) producto.setCategoria(p.getCategoria());
+            if (p.getPrecio() != null) producto.setPrecio(p.getPrecio());
+            if (p.getStock() != null && fijarStock) producto.setStock(p.getStock());
+            if (p.getActivo() != null) producto.setActivo(p.getActivo());
+            if (p.getUmbralReorden() != null || reemplazarUmbral) producto.setUmbralReorden(p.getUmbralReorden());
+            Producto guardado = repository.save(producto);
+            guardado.setSecuencia(secuencias.asignar(id));
+            return guardado;
+        });
+        if (actualizado == null) {
             throw new Exception("Producto no encontrado");
         }
 
-        Producto producto = existente.get();
-        // No actualizar el código (es único e inmutable)
-        if (p.getNombre() != null) producto.setNombre(p.getNombre());
-        if (p.getCategoria() != null) producto.setCategoria(p.getCategoria());
-        if (p.getPrecio() != null) producto.setPrecio(p.getPrecio());
-        if (p.getStock() != null) producto.setStock(p.getStock());
-        if (p.getActivo() != null) producto.setActivo(p.getActivo());
+        eventos.publishEvent(ProductoEvento.actualizado(anterior[0], actualizado));
+        // Recién confirmada la edición del producto: una que falla no deja stock pendiente de volcar
+        Integer disponible = null;
+        if (acumulador != null && p.getStock() != null) {
+            disponible = acumulador.fijar(id, p.getStock());
+        }
+        if (disponible != null) {
+            Producto visible = actualizado.copiar();
+            visible.setStock(disponible);
+            return visible;
+        }
+        return actualizado;
+    }
 
-        return repository.save(producto);
+    // Ajustar stock de un producto (+ entrada, - salida)
+    public Producto ajustarStock(Integer id, int delta) throws Exception {
+        return ajustarStock(Map.of(id, delta)).get(0);
     }
 
-    // Eliminar
+    // Ajustar stock de varios productos en una transacción (todo o nada), p. ej. un checkout
+    public List<Producto> ajustarStock(Map<Integer, Integer> deltas) throws Exception {
+        if (deltas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Orden fijo de bloqueo para que dos checkouts concurrentes no se bloqueen mutuamente
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(deltas.keySet()));
+
+        // Con write-behind todo movimiento pasa por el acumulador (el volcado lo lleva a la BD)
+        AcumuladorStock acumulador = acumuladorStock.getIfAvailable();
+        if (acumulador != null) {
+            acumulador.reservar(deltas);
+            List<Producto> productos = new ArrayList<>(ids.size());
+            repository.findAllById(ids).forEach(p -> productos.add(acumulador.conStockDisponible(p)));
+            return productos;
+        }
+
+        Exception[] rechazo = new Exception[1];
+        List<Producto> actualizados = transactionTemplate.execute(status -> {
+            for (Integer id : ids) {
+                if (repository.ajustarStock(id, deltas.get(id)) == 0) {
+                    rechazo[0] = repository.existsById(id)
+                            ? new StockInsuficienteException(id)
+                            : new ProductoNoEncontradoException(id);
+                    status.setRollbackOnly();
+                    return null;
+                }
+            }
+            // Secuencias al final, con las filas ya bloqueadas
+            secuencias.asignar(ids);
+            // Las filas siguen bloqueadas por el UPDATE: este SELECT ve el valor final
+            return repository.findAllById(ids);
+        });
+        if (rechazo[0] != null) {
+            throw rechazo[0];
+        }
+
+        for (Producto actual : actualizados) {
+            Producto anterior = actual.copiar();
+            anterior.setStock(actual.getStock() - deltas.get(actual.getId()));
+            eventos.publishEvent(ProductoEvento.movimiento(anterior, actual));
+        }
+        return actualizados;
+    }
+
+    // Reservar stock (checkout): en memoria + journal con write-behind, o ajuste atómico en BD sin él.
+    // Devuelve el stock disponible resultante por producto.
+    public Map<Integer, Integer> reservarStock(Map<Integer, Integer> deltas) throws Exception {
+        AcumuladorStock acumulador = acumuladorStock.getIfAvailable();
+        if (acumulador != null) {
+            return acumulador.reservar(deltas);
+        }
+        Map<Integer, Integer> disponibles = new LinkedHashMap<>();
+        for (Producto p : ajustarStock(deltas)) {
+            disponibles.put(p.getId(), p.getStock());
+        }
+        return disponibles;
+    }
+
+    // Eliminar (deja una lápida para la sincronización incremental)
     public void eliminar(Integer id) throws Exception {
-        if (!repository.existsById(id)) {
+        Producto eliminado = transactionTemplate.execute(status -> {
+            Optional<Producto> existente = repository.findById(id);
+            if (!existente.isPresent()) {
+                return null;
+            }
+            repository.delete(existente.get());
+            // siguiente() vuelca antes el DELETE: la secuencia se toma con la fila ya bloqueada
+            bajaRepository.save(new ProductoBaja(id, existente.get().getCodigo(), secuencias.siguiente()));
+            return existente.get().copiar();
+        });
+        if (eliminado == null) {
             throw new Exception("Producto no encontrado");
         }
-        repository.deleteById(id);
+        eventos.publishEvent(ProductoEvento.eliminado(eliminado));
     }
 }
@@ -0,0 +1,75 @@
+package com.inventario.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reporte de una importación masiva: contadores y errores por fila.
+ * Solo se guardan los primeros errores para que un archivo completamente
+ * inválido no llene la memoria; totalErrores siempre es exacto.
+ */
+public class ResultadoImportacion {
+
+    static final int MAX_ERRORES_REPORTADOS = 1000;
+
+    private long filasLeidas;
+    private long insertados;
+    private long totalErrores;
+    private final List<ErrorFila> errores = new ArrayList<>();
+
+    void filaLeida() {
+        filasLeidas++;
+    }
+
+    void insertados(int cantidad) {
+        insertados += cantidad;
+    }
+
+    void error(long linea, String codigo, String mensaje) {
+        totalErrores++;
+        if (errores.size() < MAX_ERRORES_REPORTADOS) {
+            errores.add(new ErrorFila(linea, codigo, mensaje));
+        }
+    }
+
+    public long getFilasLeidas() {
+        return filasLeidas;
+    }
+
+    public long getInsertados() {
+        return insertados;
+    }
+
+    public long getTotalErrores() {
+        return totalErrores;
+    }
+
+    public List<ErrorFila> getErrores() {
+        return errores;
+    }
+
+    public static class ErrorFila {
+
+        private final long linea;
+        private final String codigo;
+        private final String mensaje;
+
+        public ErrorFila(long linea, String codigo, String mensaje) {
+            this.linea = linea;
+            this.codigo = codigo;
+            this.mensaje = mensaje;
+        }
+
+        public long getLinea() {
+            return linea;
+        }
+
+        public String getCodigo() {
+            return codigo;
+        }
+
+        public String getMensaje() {
+            return mensaje;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.inventario.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una operación masiva sobre productos: ids pedidos (sin
+ * repetir), filas afectadas y los ids que no existían. Como en
+ * ResultadoImportacion, solo se listan los primeros no encontrados.
+ */
+public class ResultadoOperacionMasiva {
+
+    static final int MAX_NO_ENCONTRADOS_REPORTADOS = 1000;
+
+    private final String operacion;
+    private final long solicitados;
+    private long afectados;
+    private long totalNoEncontrados;
+    private final List<Integer> noEncontrados = new ArrayList<>();
+
+    ResultadoOperacionMasiva(String operacion, long solicitados) {
+        this.operacion = operacion;
+        this.solicitados = solicitados;
+    }
+
+    void afectados(int cantidad) {
+        afectados += cantidad;
+    }
+
+    void noEncontrado(Integer id) {
+        totalNoEncontrados++;
+        if (noEncontrados.size() < MAX_NO_ENCONTRADOS_REPORTADOS) {
+            noEncontrados.add(id);
+        }
+    }
+
+    public String getOperacion() {
+        return operacion;
+    }
+
+    public long getSolicitados() {
+        return solicitados;
+    }
+
+    public long getAfectados() {
+        return afectados;
+    }
+
+    public long getTotalNoEncontrados() {
+        return totalNoEncontrados;
+    }
+
+    public List<Integer> getNoEncontrados() {
+        return noEncontrados;
+    }
+}
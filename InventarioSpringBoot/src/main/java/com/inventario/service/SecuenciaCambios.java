@@ -0,0 +1,197 @@
+package com.inventario.service;
+
+import com.inventario.model.ContadorCambios;
+import com.inventario.repository.ContadorCambiosRepository;
+import com.inventario.repository.ProductoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Secuencias de cambio del catálogo (ver ContadorCambios).
+ *
+ * Se reparten desde bloques en memoria (hi/lo): la fila del contador solo se
+ * toca para pedir un bloque nuevo, en una transacción propia y corta, así
+ * ninguna escritura retiene su bloqueo hasta el commit. Como el orden de las
+ * secuencias no es el orden de commit, cada rango entregado queda "en
+ * curso" hasta que termina su transacción, y el feed solo sirve hasta
+ * marcaSegura(): por debajo de esa marca no queda ninguna transacción abierta
+ * que pueda confirmar una secuencia menor.
+ *
+ * Se piden dentro de la transacción de la escritura, después de escribir las
+ * filas: antes se vuelcan las escrituras JPA pendientes, para que dos
+ * transacciones sobre el mismo producto tomen su secuencia en el orden en
+ * que consiguen el bloqueo de la fila. Los bloques y la marca son de este
+ * proceso, igual que el acumulador de stock: una sola instancia escribe.
+ */
+@Component
+public class SecuenciaCambios {
+
+    private static final Logger log = LoggerFactory.getLogger(SecuenciaCambios.class);
+
+    private static final String ACTUALIZAR = "UPDATE productos SET secuencia = ? WHERE id = ?";
+
+    @Autowired
+    private ContadorCambiosRepository contadorRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${inventario.sincronizacion.bloque-secuencias:100}")
+    private int tamanoBloque;
+
+    // Transacción propia para pedir bloques, fuera de la de la escritura
+    private TransactionTemplate transaccionBloque;
+
+    // Bloque actual: quedan libres [siguienteLibre, finBloque]
+    private long siguienteLibre;
+    private long finBloque;
+
+    // Última secuencia entregada
+    private long ultimaEntregada;
+
+    // Primera secuencia de cada rango entregado cuya transacción no terminó
+    private final TreeSet<Long> enCurso = new TreeSet<>();
+
+    @PostConstruct
+    public void iniciar() {
+        transaccionBloque = new TransactionTemplate(transactionManager);
+        transaccionBloque.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (!contadorRepository.existsById(ContadorCambios.ID_UNICO)) {
+            contadorRepository.save(new ContadorCambios(0L));
+        }
+        // Lo que quedó de bloques de una ejecución anterior se descarta: solo deja huecos
+        ultimaEntregada = contadorRepository.valor();
+        siguienteLibre = ultimaEntregada + 1;
+        finBloque = ultimaEntregada;
+    }
+
+    // Siguiente secuencia
+    public long siguiente() {
+        return reservar(1);
+    }
+
+    // Reserva un bloque de secuencias para un lote; devuelve la última (el bloque es [última - cantidad + 1, última])
+    public long reservar(int cantidad) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Las secuencias de cambio se piden dentro de la transacción de la escritura");
+        }
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("Cantidad de secuencias inválida: " + cantidad);
+        }
+        entityManager.flush();
+        long primera;
+        synchronized (this) {
+            if (cantidad > finBloque - siguienteLibre + 1) {
+                pedirBloque(Math.max(cantidad, tamanoBloque));
+            }
+            primera = siguienteLibre;
+            siguienteLibre += cantidad;
+            ultimaEntregada = siguienteLibre - 1;
+            enCurso.add(primera);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                terminar(primera);
+            }
+        });
+        return primera + cantidad - 1;
+    }
+
+    /**
+     * Secuencia más alta que el feed puede servir: todo cambio con secuencia
+     * hasta aquí ya está confirmado (o se deshizo y quedó como hueco). Con
+     * transacciones abiertas es la anterior a la menor en curso.
+     */
+    public synchronized long marcaSegura() {
+        return enCurso.isEmpty() ? ultimaEntregada : enCurso.first() - 1;
+    }
+
+    // Lo que quede del bloque actual se descarta
+    private void pedirBloque(int cantidad) {
+        Long fin = transaccionBloque.execute(status -> {
+            contadorRepository.incrementar(cantidad);
+            return contadorRepository.valor();
+        });
+        siguienteLibre = fin - cantidad + 1;
+        finBloque = fin;
+    }
+
+    private synchronized void terminar(long primera) {
+        enCurso.remove(primera);
+    }
+
+    // Secuencia de un producto ya escrito en esta transacción; la devuelve para la copia en memoria
+    public long asignar(Integer productoId) {
+        long secuencia = siguiente();
+        jdbcTemplate.update(ACTUALIZAR, secuencia, productoId);
+        return secuencia;
+    }
+
+    /**
+     * Último paso de una transacción que modificó estos productos: un bloque
+     * del tamaño del lote, repartido en orden de id con un UPDATE por lotes
+     * JDBC. Devuelve la última secuencia del bloque.
+     */
+    public long asignar(Collection<Integer> productoIds) {
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(productoIds));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long ultima = reservar(ids.size());
+        long primera = ultima - ids.size() + 1;
+        List<Object[]> filas = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            filas.add(new Object[] { primera + i, ids.get(i) });
+        }
+        jdbcTemplate.batchUpdate(ACTUALIZAR, filas);
+        return ultima;
+    }
+
+    // Productos insertados sin pasar por el servicio (DataInitializer, scripts SQL)
+    @EventListener(ApplicationReadyEvent.class)
+    public void asignarPendientes() {
+        Integer asignados = transactionTemplate.execute(status -> {
+            int maxId = productoRepository.maxIdSinSecuencia();
+            if (maxId == 0) {
+                return 0;
+            }
+            long base = reservar(maxId) - maxId;
+            return productoRepository.asignarSecuenciaPendiente(base);
+        });
+        if (asignados != null && asignados > 0) {
+            log.info("Secuencia de cambio asignada a {} productos existentes", asignados);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.inventario.service;
+
+import com.inventario.model.PuntoSerie;
+import com.inventario.repository.PuntoSerieRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Series temporales por categoría para las tendencias del dashboard.
+ *
+ * Cada hora se guarda una muestra por categoría (productos, stock, valor y
+ * productos bajo su umbral) tomada de AgregadosInventario y AlertasStock,
+ * sin consultar el catálogo (sin AgregadosInventario, una consulta agrupada
+ * por categoría). Los días completos se compactan en un punto
+ * DIA con el promedio de sus muestras; las muestras horarias se conservan
+ * inventario.series.retencion-horaria-dias y los puntos diarios
+ * inventario.series.retencion-diaria-dias. Los rangos se leen por la clave
+ * primaria, así una consulta de meses devuelve unos cientos de filas.
+ */
+@Component
+@Lazy(false)
+public class SeriesInventario {
+
+    private static final Logger log = LoggerFactory.getLogger(SeriesInventario.class);
+
+    @Autowired
+    private PuntoSerieRepository repository;
+
+    @Autowired
+    private EstadisticasService estadisticas;
+
+    @Autowired
+    private AlertasStock alertas;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventario.series.retencion-horaria-dias:14}")
+    private int retencionHorariaDias;
+
+    @Value("${inventario.series.retencion-diaria-dias:1095}")
+    private int retencionDiariaDias;
+
+    // Rangos hasta esta cantidad de días se sirven con puntos horarios si no se pide granularidad
+    @Value("${inventario.series.maximo-horario-dias:7}")
+    private int maximoHorarioDias;
+
+    // Muestra de la hora en curso al arrancar, si todavía no la hay
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (!repository.existsByGranularidadAndInicio(PuntoSerie.Granularidad.HORA, horaActual())) {
+            registrar();
+        }
+    }
+
+    // Muestra horaria de todas las categorías, y compactación y retención
+    @Scheduled(cron = "${inventario.series.cron:0 0 * * * *}")
+    public synchronized void registrar() {
+        LocalDateTime inicio = horaActual();
+        Map<String, double[]> resumen = estadisticas.resumenPorCategoria();
+        Map<String, Long> enRiesgo = alertas.enRiesgoPorCategoria();
+        List<PuntoSerie> puntos = new ArrayList<>(resumen.size());
+        resumen.forEach((categoria, valores) -> puntos.add(new PuntoSerie(PuntoSerie.Granularidad.HORA, inicio,
+                categoria, (long) valores[0], (long) valores[1], valores[2], enRiesgo.getOrDefault(categoria, 0L), 1)));
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(puntos));
+        log.debug("Series: muestra de {} categorías a las {}", puntos.size(), inicio);
+        compactar();
+    }
+
+    // Promedia los días completos todavía sin punto DIA y aplica la retención
+    public synchronized void compactar() {
+        LocalDate hoy = LocalDate.now();
+        int dias = transactionTemplate.execute(status -> {
+            int compactados = 0;
+            LocalDate dia = pendienteDeCompactar();
+            for (; dia != null && dia.isBefore(hoy); dia = siguienteConMuestras(dia)) {
+                List<PuntoSerie> diarios = promediar(dia, repository
+                        .findByGranularidadAndInicioBetweenOrderByInicioAscCategoriaAsc(
+                                PuntoSerie.Granularidad.HORA, dia.atStartOfDay(), finDelDia(dia)));
+                repository.saveAll(diarios);
+                compactados++;
+            }
+            repository.borrarAnteriores(PuntoSerie.Granularidad.HORA,
+                    hoy.minusDays(retencionHorariaDias).atStartOfDay());
+            repository.borrarAnteriores(PuntoSerie.Granularidad.DIA,
+                    hoy.minusDays(retencionDiariaDias).atStartOfDay());
+            return compactados;
+        });
+        if (dias > 0) {
+            log.info("Series: {} días compactados", dias);
+        }
+    }
+
+    /**
+     * Puntos de un rango, por categoría y sumados para todo el inventario.
+     * Sin granularidad se usan puntos horarios para rangos de hasta
+     * maximo-horario-dias y diarios para los más largos; los días aún sin
+     * compactar (normalmente hoy) se promedian al vuelo desde sus muestras.
+     */
+    public Map<String, Object> rango(LocalDateTime desde, LocalDateTime hasta, String categoria,
+                                     PuntoSerie.Granularidad granularidad) {
+        if (granularidad == null) {
+            granularidad = Duration.between(desde, hasta).compareTo(Duration.ofDays(maximoHorarioDias)) <= 0
+                    ? PuntoSerie.Granularidad.HORA : PuntoSerie.Granularidad.DIA;
+        }
+        if (granularidad == PuntoSerie.Granularidad.DIA) {
+            desde = desde.truncatedTo(ChronoUnit.DAYS);
+        }
+        List<PuntoSerie> puntos = consultar(granularidad, desde, hasta, categoria);
+        if (granularidad == PuntoSerie.Granularidad.DIA) {
+            LocalDate dia = pendienteDeCompactar();
+            if (dia != null && dia.isBefore(desde.toLocalDate())) {
+                dia = desde.toLocalDate();
+            }
+            for (; dia != null && !dia.isAfter(hasta.toLocalDate()); dia = siguienteConMuestras(dia)) {
+                puntos.addAll(promediar(dia, consultar(PuntoSerie.Granularidad.HORA,
+                        dia.atStartOfDay(), finDelDia(dia), categoria)));
+            }
+        }
+
+        Map<String, List<Map<String, Object>>> series = new TreeMap<>();
+        Map<LocalDateTime, PuntoSerie> totales = new TreeMap<>();
+        for (PuntoSerie p : puntos) {
+            series.computeIfAbsent(p.getCategoria(), c -> new ArrayList<>()).add(fila(p));
+            totales.merge(p.getInicio(), p, (a, b) -> new PuntoSerie(a.getGranularidad(), a.getInicio(), null,
+                    a.getProductos() + b.getProductos(), a.getStock() + b.getStock(),
+                    a.getValor() + b.getValor(), a.getStockBajo() + b.getStockBajo(), a.getMuestras()));
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("granularidad", granularidad);
+        resultado.put("desde", desde);
+        resultado.put("hasta", hasta);
+        resultado.put("total", totales.values().stream().map(SeriesInventario::fila).toList());
+        resultado.put("series", series);
+        return resultado;
+    }
+
+    private List<PuntoSerie> consultar(PuntoSerie.Granularidad granularidad, LocalDateTime desde,
+                                       LocalDateTime hasta, String categoria) {
+        if (categoria != null && !categoria.isBlank()) {
+            return new ArrayList<>(repository.findByGranularidadAndCategoriaAndInicioBetweenOrderByInicioAsc(
+                    granularidad, categoria, desde, hasta));
+        }
+        return new ArrayList<>(repository.findByGranularidadAndInicioBetweenOrderByInicioAscCategoriaAsc(
+                granularidad, desde, hasta));
+    }
+
+    // Primer día con muestras horarias y sin punto diario (null si no hay)
+    private LocalDate pendienteDeCompactar() {
+        LocalDateTime ultimoDia = repository.ultimo(PuntoSerie.Granularidad.DIA);
+        LocalDateTime primera = ultimoDia != null
+                ? repository.primeroDesde(PuntoSerie.Granularidad.HORA, ultimoDia.plusDays(1))
+                : repository.primero(PuntoSerie.Granularidad.HORA);
+        return primera != null ? primera.toLocalDate() : null;
+    }
+
+    // Siguiente día con muestras horarias (null si no hay)
+    private LocalDate siguienteConMuestras(LocalDate dia) {
+        LocalDateTime siguiente = repository.primeroDesde(PuntoSerie.Granularidad.HORA,
+                dia.plusDays(1).atStartOfDay());
+        return siguiente != null ? siguiente.toLocalDate() : null;
+    }
+
+    // Un punto DIA por categoría con el promedio de sus muestras horarias
+    private static List<PuntoSerie> promediar(LocalDate dia, List<PuntoSerie> horas) {
+        Map<String, double[]> sumas = new TreeMap<>();
+        for (PuntoSerie h : horas) {
+            double[] suma = sumas.computeIfAbsent(h.getCategoria(), c -> new double[5]);
+            suma[0] += h.getProductos();
+            suma[1] += h.getStock();
+            suma[2] += h.getValor();
+            suma[3] += h.getStockBajo();
+            suma[4]++;
+        }
+        List<PuntoSerie> diarios = new ArrayList<>(sumas.size());
+        sumas.forEach((categoria, suma) -> diarios.add(new PuntoSerie(PuntoSerie.Granularidad.DIA,
+                dia.atStartOfDay(), categoria, Math.round(suma[0] / suma[4]), Math.round(suma[1] / suma[4]),
+                suma[2] / suma[4], Math.round(suma[3] / suma[4]), (int) suma[4])));
+        return diarios;
+    }
+
+    private static Map<String, Object> fila(PuntoSerie p) {
+        Map<String, Object> fila = new LinkedHashMap<>();
+        fila.put("inicio", p.getInicio());
+        fila.put("productos", p.getProductos());
+        fila.put("stock", p.getStock());
+        fila.put("valor", p.getValor());
+        fila.put("stockBajo", p.getStockBajo());
+        return fila;
+    }
+
+    private static LocalDateTime horaActual() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static LocalDateTime finDelDia(LocalDate dia) {
+        return dia.plusDays(1).atStartOfDay().minusSeconds(1);
+    }
+}
@@ -0,0 +1,113 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.model.ProductoBaja;
+import com.inventario.repository.ContadorCambiosRepository;
+import com.inventario.repository.ProductoBajaRepository;
+import com.inventario.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Feed de sincronización incremental para clientes con copia local del
+ * catálogo: lo que cambió después de un cursor, paginado, así el tráfico
+ * depende del volumen de cambios y no del tamaño del catálogo.
+ */
+@Service
+@Lazy(false)
+public class SincronizacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SincronizacionService.class);
+
+    public static final int LIMITE_MAXIMO = 1000;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoBajaRepository bajaRepository;
+
+    @Autowired
+    private ContadorCambiosRepository contadorRepository;
+
+    @Autowired
+    private SecuenciaCambios secuencias;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventario.sincronizacion.retencion-bajas-dias:90}")
+    private int retencionBajasDias;
+
+    /**
+     * Cursor 0 = sincronización completa. Lanza CursorVencidoException si el
+     * cursor es anterior a bajas ya purgadas.
+     *
+     * Productos y bajas se leen con dos consultas; con READ COMMITTED un
+     * commit puede caer entre ambas, y una transacción abierta puede confirmar
+     * más tarde una secuencia menor que otra ya visible. Por eso primero se
+     * toma la marca segura y solo se devuelve lo que tiene secuencia hasta
+     * ella: por debajo no queda ninguna transacción abierta, así que todo ya
+     * está confirmado y lo ven las dos consultas. Lo posterior sale en la
+     * próxima página.
+     */
+    @Transactional(readOnly = true)
+    public CambiosCatalogo cambiosDesde(long desde, int limite) throws CursorVencidoException {
+        if (desde > 0 && desde < contadorRepository.bajasPurgadasHasta()) {
+            throw new CursorVencidoException(desde);
+        }
+        int tamano = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        long tope = secuencias.marcaSegura();
+        // Un elemento extra de cada lado para saber si hay más
+        List<Producto> leidos = productoRepository.findBySecuenciaGreaterThanOrderBySecuenciaAsc(
+                desde, PageRequest.of(0, tamano + 1));
+        List<ProductoBaja> bajasLeidas = bajaRepository.findBySecuenciaGreaterThanOrderBySecuenciaAsc(
+                desde, PageRequest.of(0, tamano + 1));
+        List<Producto> productos = leidos.stream().filter(p -> p.getSecuencia() <= tope).toList();
+        List<ProductoBaja> bajas = bajasLeidas.stream().filter(b -> b.getSecuencia() <= tope).toList();
+        boolean posteriores = productos.size() < leidos.size() || bajas.size() < bajasLeidas.size();
+
+        // Mezcla por secuencia, hasta "tamano" elementos
+        CambiosCatalogo resultado = new CambiosCatalogo(desde);
+        int i = 0;
+        int j = 0;
+        while (i + j < tamano && (i < productos.size() || j < bajas.size())) {
+            boolean tomarProducto = j >= bajas.size()
+                    || (i < productos.size() && productos.get(i).getSecuencia() < bajas.get(j).getSecuencia());
+            if (tomarProducto) {
+                resultado.cambio(productos.get(i++));
+            } else {
+                ProductoBaja baja = bajas.get(j++);
+                resultado.eliminado(baja.getProductoId(), baja.getCodigo(), baja.getSecuencia());
+            }
+        }
+        resultado.setHayMas(i < productos.size() || j < bajas.size() || posteriores);
+        return resultado;
+    }
+
+    // Las lápidas se conservan inventario.sincronizacion.retencion-bajas-dias
+    @Scheduled(cron = "${inventario.sincronizacion.purga-cron:0 30 3 * * *}")
+    public void purgarBajas() {
+        Integer purgadas = transactionTemplate.execute(status -> {
+            long hasta = bajaRepository.maxSecuenciaAntesDe(LocalDateTime.now().minusDays(retencionBajasDias));
+            if (hasta == 0) {
+                return 0;
+            }
+            contadorRepository.registrarPurga(hasta);
+            return bajaRepository.purgarHasta(hasta);
+        });
+        if (purgadas != null && purgadas > 0) {
+            log.info("Purgadas {} lápidas de productos eliminados", purgadas);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.inventario.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock de un producto en un momento según el libro de movimientos: la
+ * última instantánea hasta ese momento más los movimientos posteriores.
+ */
+public class StockEnFecha {
+
+    private final Integer productoId;
+    private final LocalDateTime fecha;
+    private final int stock;
+    private final LocalDateTime instantanea;
+
+    public StockEnFecha(Integer productoId, LocalDateTime fecha, int stock, LocalDateTime instantanea) {
+        this.productoId = productoId;
+        this.fecha = fecha;
+        this.stock = stock;
+        this.instantanea = instantanea;
+    }
+
+    public Integer getProductoId() {
+        return productoId;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    // Fecha de la instantánea usada como base (null si se sumó desde el alta del producto)
+    public LocalDateTime getInstantanea() {
+        return instantanea;
+    }
+}
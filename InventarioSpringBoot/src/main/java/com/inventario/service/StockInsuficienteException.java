@@ -0,0 +1,18 @@
+package com.inventario.service;
+
+/**
+ * Un ajuste de stock dejaría el producto en negativo (o por encima del máximo).
+ */
+public class StockInsuficienteException extends Exception {
+
+    private final Integer productoId;
+
+    public StockInsuficienteException(Integer productoId) {
+        super("Stock insuficiente para el producto " + productoId);
+        this.productoId = productoId;
+    }
+
+    public Integer getProductoId() {
+        return productoId;
+    }
+}
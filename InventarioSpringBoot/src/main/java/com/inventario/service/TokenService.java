@@ -0,0 +1,100 @@
+package com.inventario.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Tokens de acceso firmados con HMAC-SHA256 para la API.
+ *
+ * Formato: base64url(username:expiracion).base64url(firma). Se emiten tras
+ * un login con contraseña (un solo BCrypt) y se validan con un HMAC, sin
+ * sesión HTTP ni BCrypt en cada request. Sin
+ * inventario.seguridad.token.secreto se usa una clave aleatoria por
+ * arranque: los tokens dejan de valer al reiniciar.
+ */
+@Service
+public class TokenService {
+
+    private static final String ALGORITMO = "HmacSHA256";
+
+    private final SecretKeySpec clave;
+    private final long duracionSegundos;
+
+    public TokenService(@Value("${inventario.seguridad.token.secreto:}") String secreto,
+                        @Value("${inventario.seguridad.token.duracion-min:480}") long duracionMin) {
+        byte[] bytes;
+        if (secreto == null || secreto.isEmpty()) {
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = secreto.getBytes(StandardCharsets.UTF_8);
+        }
+        this.clave = new SecretKeySpec(bytes, ALGORITMO);
+        this.duracionSegundos = duracionMin * 60;
+    }
+
+    public String emitir(String username) {
+        long expiracion = Instant.now().getEpochSecond() + duracionSegundos;
+        byte[] datos = (username + ":" + expiracion).getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        return b64.encodeToString(datos) + "." + b64.encodeToString(firmar(datos));
+    }
+
+    public long getDuracionSegundos() {
+        return duracionSegundos;
+    }
+
+    // Username del token, o null si la firma no coincide, está mal formado o expiró
+    public String validar(String token) {
+        int punto = token.indexOf('.');
+        if (punto <= 0) {
+            return null;
+        }
+        byte[] datos;
+        byte[] firma;
+        try {
+            Base64.Decoder b64 = Base64.getUrlDecoder();
+            datos = b64.decode(token.substring(0, punto));
+            firma = b64.decode(token.substring(punto + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(firma, firmar(datos))) {
+            return null;
+        }
+        String contenido = new String(datos, StandardCharsets.UTF_8);
+        int separador = contenido.lastIndexOf(':');
+        if (separador <= 0) {
+            return null;
+        }
+        try {
+            long expiracion = Long.parseLong(contenido.substring(separador + 1));
+            if (Instant.now().getEpochSecond() > expiracion) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return contenido.substring(0, separador);
+    }
+
+    private byte[] firmar(byte[] datos) {
+        try {
+            // Mac no es thread-safe; crearlo es barato frente a un BCrypt
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(clave);
+            return mac.doFinal(datos);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 no disponible", e);
+        }
+    }
+}
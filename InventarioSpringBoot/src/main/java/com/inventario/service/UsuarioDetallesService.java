@@ -0,0 +1,86 @@
+package com.inventario.service;
+
+import com.inventario.model.Usuario;
+import com.inventario.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import java.util.Optional;
+
+/**
+ * Usuarios desde la tabla usuarios, con caché acotada (caché "usuarios",
+ * mismo spec que las de productos).
+ *
+ * La caché guarda el Usuario y cada llamada arma un UserDetails nuevo:
+ * Spring Security borra la contraseña del UserDetails después de
+ * autenticar y no debe tocar el objeto cacheado. Si cambia el costo de
+ * BCrypt, el hash se regenera en el siguiente login exitoso.
+ *
+ * Toda escritura de usuarios desde la aplicación debe llamar a evict();
+ * los cambios hechos directamente en la tabla (rol, activo) se ven cuando
+ * vence la entrada.
+ */
+@Service
+public class UsuarioDetallesService implements UserDetailsService, UserDetailsPasswordService {
+
+    public static final String CACHE_USUARIOS = "usuarios";
+
+    @Autowired
+    private UsuarioRepository repository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        Usuario usuario = buscar(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+        return User.builder()
+                .username(usuario.getUsername())
+                .password(usuario.getPassword())
+                .roles(usuario.getRol())
+                .disabled(!usuario.getActivo())
+                .build();
+    }
+
+    // Usuario activo (para validar tokens sin volver a la BD en cada request)
+    public Optional<Usuario> buscar(String username) {
+        Cache cache = cacheManager.getCache(CACHE_USUARIOS);
+        if (cache == null) {
+            return repository.findByUsername(username);
+        }
+        Usuario usuario = cache.get(username, Usuario.class);
+        if (usuario != null) {
+            return Optional.of(usuario);
+        }
+        // Los inexistentes no se cachean: un usuario recién insertado puede entrar de inmediato
+        Optional<Usuario> encontrado = repository.findByUsername(username);
+        encontrado.ifPresent(u -> cache.put(username, u));
+        return encontrado;
+    }
+
+    // Rehash con el costo de BCrypt configurado (lo llama Spring Security tras un login exitoso)
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        repository.findByUsername(user.getUsername()).ifPresent(usuario -> {
+            usuario.setPassword(newPassword);
+            repository.save(usuario);
+        });
+        evict(user.getUsername());
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+
+    // Llamar después de modificar un usuario en la BD
+    public void evict(String username) {
+        Cache cache = cacheManager.getCache(CACHE_USUARIOS);
+        if (cache != null) {
+            cache.evict(username);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+-- Esquema inicial para H2 (equivalente a mysql/V1__esquema_inicial.sql).
+
+CREATE TABLE productos (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    codigo VARCHAR(50) NOT NULL UNIQUE,
+    nombre VARCHAR(120) NOT NULL,
+    categoria VARCHAR(50),
+    precio DOUBLE PRECISION NOT NULL,
+    stock INT NOT NULL,
+    activo BOOLEAN DEFAULT TRUE NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    actualizado_en TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+    secuencia BIGINT DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX idx_codigo ON productos (codigo);
+CREATE INDEX idx_categoria ON productos (categoria);
+CREATE INDEX idx_activo ON productos (activo);
+CREATE INDEX idx_precio ON productos (precio);
+CREATE INDEX idx_stock ON productos (stock);
+CREATE INDEX idx_secuencia ON productos (secuencia);
+
+CREATE TABLE stock_punto_control (
+    id INT PRIMARY KEY,
+    segmento BIGINT NOT NULL
+);
+
+CREATE TABLE contador_cambios (
+    id INT PRIMARY KEY,
+    valor BIGINT NOT NULL,
+    bajas_purgadas_hasta BIGINT NOT NULL
+);
+
+INSERT INTO contador_cambios (id, valor, bajas_purgadas_hasta) VALUES (1, 0, 0);
+
+CREATE TABLE producto_bajas (
+    producto_id INT PRIMARY KEY,
+    codigo VARCHAR(50) NOT NULL,
+    secuencia BIGINT NOT NULL,
+    eliminado_en TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_baja_secuencia ON producto_bajas (secuencia);
+
+CREATE TABLE usuarios (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(50) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    rol VARCHAR(20) NOT NULL,
+    activo BOOLEAN DEFAULT TRUE NOT NULL,
+    fecha_creacion TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6)
+);
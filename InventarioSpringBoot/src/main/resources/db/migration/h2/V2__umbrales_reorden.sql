@@ -0,0 +1,9 @@
+-- Umbrales de reorden por producto y por categoría (AlertasStock)
+-- Idempotente: una BD tomada como versión 1 puede tener ya estas tablas (database/schema.sql, ddl-auto)
+
+ALTER TABLE productos ADD COLUMN IF NOT EXISTS umbral_reorden INT;
+
+CREATE TABLE IF NOT EXISTS umbrales_categoria (
+    categoria VARCHAR(50) PRIMARY KEY,
+    umbral INT NOT NULL
+);
@@ -0,0 +1,35 @@
+-- Libro de movimientos de stock, instantáneas y acumulados diarios (LibroMovimientos)
+-- Idempotente, como V2
+
+CREATE TABLE IF NOT EXISTS movimientos_stock (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id INT NOT NULL,
+    codigo VARCHAR(50) NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    tipo VARCHAR(10) NOT NULL,
+    cantidad INT NOT NULL,
+    usuario VARCHAR(50) NOT NULL,
+    fecha TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_mov_producto ON movimientos_stock (producto_id, id);
+
+CREATE TABLE IF NOT EXISTS stock_instantaneas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id INT NOT NULL,
+    stock INT NOT NULL,
+    hasta_movimiento BIGINT NOT NULL,
+    fecha TIMESTAMP(6) NOT NULL,
+    apertura BOOLEAN NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_inst_producto ON stock_instantaneas (producto_id, hasta_movimiento);
+
+CREATE TABLE IF NOT EXISTS movimientos_diarios (
+    dia DATE NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    tipo VARCHAR(10) NOT NULL,
+    movimientos BIGINT NOT NULL,
+    unidades BIGINT NOT NULL,
+    PRIMARY KEY (dia, categoria, tipo)
+);
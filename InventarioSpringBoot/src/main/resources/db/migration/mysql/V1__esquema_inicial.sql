@@ -0,0 +1,53 @@
+-- Esquema inicial (el mismo que database/schema.sql, sin datos de ejemplo).
+-- Con el perfil "rapido" Flyway reemplaza a ddl-auto: Hibernate no
+-- inspecciona ni altera el esquema al arrancar.
+
+CREATE TABLE productos (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    codigo VARCHAR(50) NOT NULL UNIQUE,
+    nombre VARCHAR(120) NOT NULL,
+    categoria VARCHAR(50),
+    precio DOUBLE NOT NULL,
+    stock INT NOT NULL,
+    activo BOOLEAN NOT NULL DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0,
+    actualizado_en DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    secuencia BIGINT NOT NULL DEFAULT 0,
+    INDEX idx_codigo (codigo),
+    INDEX idx_categoria (categoria),
+    INDEX idx_activo (activo),
+    INDEX idx_precio (precio),
+    INDEX idx_stock (stock),
+    INDEX idx_secuencia (secuencia)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE stock_punto_control (
+    id INT PRIMARY KEY,
+    segmento BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE contador_cambios (
+    id INT PRIMARY KEY,
+    valor BIGINT NOT NULL,
+    bajas_purgadas_hasta BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO contador_cambios (id, valor, bajas_purgadas_hasta) VALUES (1, 0, 0);
+
+CREATE TABLE producto_bajas (
+    producto_id INT PRIMARY KEY,
+    codigo VARCHAR(50) NOT NULL,
+    secuencia BIGINT NOT NULL,
+    eliminado_en DATETIME(6) NOT NULL,
+    INDEX idx_baja_secuencia (secuencia)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE usuarios (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    rol VARCHAR(20) NOT NULL,
+    activo BOOLEAN NOT NULL DEFAULT TRUE,
+    fecha_creacion DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_username (username)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,15 @@
+-- Umbrales de reorden por producto y por categoría (AlertasStock)
+-- Idempotente: una BD tomada como versión 1 puede tener ya estas tablas (database/schema.sql, ddl-auto)
+
+-- MySQL no tiene ADD COLUMN IF NOT EXISTS
+SET @existe := (SELECT COUNT(*) FROM information_schema.columns
+                WHERE table_schema = DATABASE() AND table_name = 'productos' AND column_name = 'umbral_reorden');
+SET @sentencia := IF(@existe = 0, 'ALTER TABLE productos ADD COLUMN umbral_reorden INT NULL', 'DO 0');
+PREPARE agregar_umbral FROM @sentencia;
+EXECUTE agregar_umbral;
+DEALLOCATE PREPARE agregar_umbral;
+
+CREATE TABLE IF NOT EXISTS umbrales_categoria (
+    categoria VARCHAR(50) PRIMARY KEY,
+    umbral INT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
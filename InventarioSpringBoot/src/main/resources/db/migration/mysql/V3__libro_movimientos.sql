@@ -0,0 +1,33 @@
+-- Libro de movimientos de stock, instantáneas y acumulados diarios (LibroMovimientos)
+-- Idempotente, como V2
+
+CREATE TABLE IF NOT EXISTS movimientos_stock (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id INT NOT NULL,
+    codigo VARCHAR(50) NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    tipo VARCHAR(10) NOT NULL,
+    cantidad INT NOT NULL,
+    usuario VARCHAR(50) NOT NULL,
+    fecha DATETIME(6) NOT NULL,
+    INDEX idx_mov_producto (producto_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS stock_instantaneas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id INT NOT NULL,
+    stock INT NOT NULL,
+    hasta_movimiento BIGINT NOT NULL,
+    fecha DATETIME(6) NOT NULL,
+    apertura BOOLEAN NOT NULL,
+    INDEX idx_inst_producto (producto_id, hasta_movimiento)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS movimientos_diarios (
+    dia DATE NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    tipo VARCHAR(10) NOT NULL,
+    movimientos BIGINT NOT NULL,
+    unidades BIGINT NOT NULL,
+    PRIMARY KEY (dia, categoria, tipo)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,14 @@
+-- Series temporales por categoría, horarias y diarias (SeriesInventario)
+-- Idempotente, como V2
+
+CREATE TABLE IF NOT EXISTS series_categoria (
+    granularidad VARCHAR(4) NOT NULL,
+    inicio DATETIME(6) NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    productos BIGINT NOT NULL,
+    stock BIGINT NOT NULL,
+    valor DOUBLE NOT NULL,
+    stock_bajo BIGINT NOT NULL,
+    muestras INT NOT NULL,
+    PRIMARY KEY (granularidad, inicio, categoria)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
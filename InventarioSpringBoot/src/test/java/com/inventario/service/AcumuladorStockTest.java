@@ -0,0 +1,177 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.model.PuntoControlStock;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.PuntoControlStockRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AcumuladorStockTest {
+
+    @TempDir
+    Path directorio;
+
+    @Mock
+    private ProductoRepository repository;
+
+    @Mock
+    private PuntoControlStockRepository puntoControlRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private SecuenciaCambios secuencias;
+
+    @Mock
+    private ApplicationEventPublisher eventos;
+
+    @Spy
+    private MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Mock
+    private LibroMovimientos libro;
+
+    @Mock
+    private TaskExecutor taskExecutor;
+
+    @InjectMocks
+    private AcumuladorStock acumulador;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(acumulador, "directorio", directorio.toString());
+        ReflectionTestUtils.setField(acumulador, "umbralRegistros", 5000);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        acumulador.detener();
+    }
+
+    @Test
+    void alArrancarReaplicaLosSegmentosPosterioresAlPuntoDeControl() throws Exception {
+        JournalStock anterior = new JournalStock(directorio, false);
+        anterior.abrir(2);
+        anterior.escribir(new int[]{9}, new int[]{-4}); // ya volcado: el punto de control es 2
+        anterior.cerrar();
+        anterior.abrir(3);
+        anterior.escribir(new int[]{1, 2}, new int[]{-2, 5});
+        anterior.escribir(new int[]{1}, new int[]{-1});
+        anterior.cerrar();
+
+        when(puntoControlRepository.findById(PuntoControlStock.ID_UNICO))
+                .thenReturn(Optional.of(new PuntoControlStock(2L)));
+        when(repository.ajustarStock(anyInt(), anyInt())).thenReturn(1);
+        when(repository.findAllById(any())).thenReturn(List.of(producto(1, 7), producto(2, 15)));
+
+        acumulador.iniciar();
+
+        verify(repository).ajustarStock(1, -3);
+        verify(repository).ajustarStock(2, 5);
+        verify(repository, never()).ajustarStock(eq(9), anyInt());
+        verify(puntoControlRepository).save(argThat((PuntoControlStock p) -> p.getSegmento() == 3L));
+
+        ArgumentCaptor<ProductoEvento> anotados = ArgumentCaptor.forClass(ProductoEvento.class);
+        verify(libro, times(2)).anotar(anotados.capture());
+        ProductoEvento movimiento = anotados.getAllValues().stream()
+                .filter(e -> e.getId() == 1).findFirst().orElseThrow();
+        assertEquals(10, movimiento.getAnterior().getStock());
+        assertEquals(7, movimiento.getActual().getStock());
+        verify(eventos, never()).publishEvent(any(Object.class));
+
+        // Los segmentos reaplicados se borran y el journal sigue en el siguiente
+        assertEquals(List.of(4L), new JournalStock(directorio, false).segmentos());
+    }
+
+    @Test
+    void unVolcadoFallidoSeReintentaAunqueNoLleguenReservasNuevas() throws Exception {
+        when(puntoControlRepository.findById(PuntoControlStock.ID_UNICO)).thenReturn(Optional.empty());
+        acumulador.iniciar();
+
+        when(repository.findById(1)).thenReturn(Optional.of(producto(1, 10)));
+        assertEquals(Map.of(1, 7), acumulador.reservar(Map.of(1, -3)));
+
+        when(repository.ajustarStock(1, -3)).thenThrow(new QueryTimeoutException("sin conexión")).thenReturn(1);
+        when(repository.findAllById(any())).thenReturn(List.of(producto(1, 7)));
+
+        acumulador.volcar();
+        verify(eventos, never()).publishEvent(any(Object.class));
+        assertEquals(7, acumulador.stockDisponible(1));
+
+        acumulador.volcar();
+        verify(repository, times(2)).ajustarStock(1, -3);
+        ArgumentCaptor<ProductoEvento> publicado = ArgumentCaptor.forClass(ProductoEvento.class);
+        verify(eventos).publishEvent(publicado.capture());
+        assertEquals(10, publicado.getValue().getAnterior().getStock());
+        assertEquals(7, publicado.getValue().getActual().getStock());
+        assertEquals(1, publicado.getValue().getDetalles().size());
+        assertEquals(-3, publicado.getValue().getDetalles().get(0).getCantidad());
+        assertEquals(7, acumulador.stockDisponible(1));
+
+        // Un tercer volcado sin movimientos no vuelve a aplicar ni publicar nada
+        acumulador.volcar();
+        verify(repository, times(2)).ajustarStock(1, -3);
+        verify(eventos, times(1)).publishEvent(any(Object.class));
+        assertEquals(List.of(3L), new JournalStock(directorio, false).segmentos());
+    }
+
+    @Test
+    void unaReservaSinStockSuficienteNoSeEscribeNiDescuenta() throws Exception {
+        when(puntoControlRepository.findById(PuntoControlStock.ID_UNICO)).thenReturn(Optional.empty());
+        acumulador.iniciar();
+        when(repository.findById(1)).thenReturn(Optional.of(producto(1, 10)));
+        when(repository.findById(2)).thenReturn(Optional.of(producto(2, 1)));
+
+        assertThrows(StockInsuficienteException.class, () -> acumulador.reservar(Map.of(1, -3, 2, -2)));
+
+        assertEquals(10, acumulador.stockDisponible(1));
+        acumulador.volcar();
+        verify(repository, never()).ajustarStock(anyInt(), anyInt());
+    }
+
+    private static Producto producto(int id, int stock) {
+        Producto p = new Producto(id, "P" + id, "Producto " + id, "General", 10.0, stock, true);
+        p.setVersion(1L);
+        return p;
+    }
+}
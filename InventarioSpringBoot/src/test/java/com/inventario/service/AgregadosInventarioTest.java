@@ -0,0 +1,222 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AgregadosInventarioTest {
+
+    private static final String[] CATEGORIAS = {"Electrónica", "Hogar", "Oficina", null};
+
+    @Mock
+    private ProductoRepository repository;
+
+    @Mock
+    private AlertasStock alertas;
+
+    @InjectMocks
+    private AgregadosInventario agregados;
+
+    // La tabla de productos que ven las consultas del repositorio
+    private final TreeMap<Integer, Producto> tabla = new TreeMap<>();
+
+    // Se ejecuta una vez cuando el recorrido pide el lote que empieza después de este id
+    private int escribirAntesDelLote = -1;
+    private Runnable escritura;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findByIdGreaterThanOrderByIdAsc(anyInt(), any(Pageable.class))).thenAnswer(inv -> {
+            int ultimoId = inv.getArgument(0);
+            Pageable pagina = inv.getArgument(1);
+            if (ultimoId == escribirAntesDelLote) {
+                escribirAntesDelLote = -1;
+                escritura.run();
+            }
+            List<Producto> lote = tabla.tailMap(ultimoId, false).values().stream()
+                    .limit(pagina.getPageSize() + 1L)
+                    .map(Producto::copiar)
+                    .toList();
+            boolean hayMas = lote.size() > pagina.getPageSize();
+            return new SliceImpl<>(hayMas ? lote.subList(0, pagina.getPageSize()) : lote, pagina, hayMas);
+        });
+        when(repository.findAll(any(Pageable.class))).thenAnswer(inv -> top(inv.getArgument(0)));
+        when(alertas.criticos()).thenReturn(List.of());
+    }
+
+    @Test
+    void aplicarEventosEquivaleAReconstruirDesdeLaTabla() {
+        cargarCatalogo(40);
+        agregados.reconstruir();
+
+        escribir(actualizacion(3, p -> p.setPrecio(9_999.0)));               // entra al top de precio
+        escribir(actualizacion(7, p -> p.setStock(5_000)));                 // entra al top de stock
+        escribir(actualizacion(3, p -> p.setPrecio(1.0)));                  // sale del top: hay que volver a consultar
+        escribir(actualizacion(10, p -> p.setCategoria("Nueva")));
+        escribir(actualizacion(11, p -> p.setActivo(false)));
+        escribir(alta(producto(41, "Hogar", 2_500.0, 300)));
+        escribir(baja(7));
+        escribir(baja(41));
+        escribir(actualizacion(12, p -> p.setCategoria(null)));
+
+        assertIguales(reconstruidoDesdeLaTabla(), agregados);
+    }
+
+    @Test
+    void losEventosDuranteElRecorridoSeReaplicanSoloSiElRecorridoNoLosVio() {
+        // Tres lotes de carga; las escrituras ocurren justo antes de pedir el segundo
+        cargarCatalogo(2_500);
+        escribirAntesDelLote = 1_000;
+        escritura = () -> {
+            escribir(actualizacion(10, p -> p.setStock(p.getStock() + 700)));     // ya recorrido
+            escribir(actualizacion(1_500, p -> p.setStock(p.getStock() + 900)));  // aún no recorrido
+            escribir(actualizacion(10, p -> p.setCategoria("Nueva")));
+            escribir(baja(20));                                                  // ya recorrido
+            escribir(baja(2_100));                                               // aún no recorrido
+            escribir(alta(producto(2_501, "Oficina", 5.0, 12)));                 // lo verá el recorrido
+        };
+
+        agregados.reconstruir();
+
+        assertIguales(reconstruidoDesdeLaTabla(), agregados);
+        assertEquals(2_499, agregados.obtenerEstadisticas().get("totalProductos"));
+    }
+
+    @Test
+    void reaplicarOrdenaPorVersionYRespetaLoQueVioElRecorrido() {
+        Producto v1 = producto(1, "Hogar", 10.0, 5);
+        v1.setVersion(1L);
+        Producto v2 = v1.copiar();
+        v2.setStock(8);
+        v2.setVersion(2L);
+        Producto v3 = v2.copiar();
+        v3.setStock(20);
+        v3.setVersion(3L);
+
+        // El recorrido vio la versión 2
+        AgregadosInventario.Estado estado = new AgregadosInventario.Estado();
+        estado.cargar(v2);
+        AgregadosInventario.VersionesVistas vistas = new AgregadosInventario.VersionesVistas();
+        vistas.agregar(1, 2L);
+
+        // Llegaron desordenados; el de la versión 2 ya estaba contado
+        int reaplicados = AgregadosInventario.reaplicar(estado, List.of(
+                ProductoEvento.movimiento(v2, v3),
+                ProductoEvento.movimiento(v1, v2),
+                ProductoEvento.creado(producto(2, "Hogar", 1.0, 1)),
+                ProductoEvento.eliminado(producto(9, "Hogar", 1.0, 1))), vistas);
+
+        assertEquals(2, reaplicados);
+        assertEquals(2, estado.totalProductos);
+        assertArrayEquals(new double[]{2, 21}, new double[]{estado.porCategoria.get("Hogar")[0],
+                estado.porCategoria.get("Hogar")[1]});
+    }
+
+    private AgregadosInventario reconstruidoDesdeLaTabla() {
+        AgregadosInventario desdeTabla = new AgregadosInventario();
+        ReflectionTestUtils.setField(desdeTabla, "repository", repository);
+        ReflectionTestUtils.setField(desdeTabla, "alertas", alertas);
+        desdeTabla.reconstruir();
+        return desdeTabla;
+    }
+
+    private static void assertIguales(AgregadosInventario esperado, AgregadosInventario actual) {
+        Map<String, Object> a = esperado.obtenerEstadisticas();
+        Map<String, Object> b = actual.obtenerEstadisticas();
+        assertEquals(a.get("totalProductos"), b.get("totalProductos"));
+        assertEquals((double) a.get("valorTotal"), (double) b.get("valorTotal"), 1e-6);
+        assertEquals(a.get("productosActivos"), b.get("productosActivos"));
+        assertEquals(a.get("productosPorCategoria"), b.get("productosPorCategoria"));
+        assertEquals(a.get("stockPorCategoria"), b.get("stockPorCategoria"));
+        assertEquals(ids(a.get("productosMasCaros")), ids(b.get("productosMasCaros")));
+        assertEquals(ids(a.get("productosMasStock")), ids(b.get("productosMasStock")));
+
+        Map<String, double[]> resumenA = esperado.resumenPorCategoria();
+        Map<String, double[]> resumenB = actual.resumenPorCategoria();
+        assertEquals(resumenA.keySet(), resumenB.keySet());
+        resumenA.forEach((categoria, valores) -> assertArrayEquals(valores, resumenB.get(categoria), 1e-6, categoria));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Integer> ids(Object productos) {
+        return ((List<Producto>) productos).stream().map(Producto::getId).toList();
+    }
+
+    private void cargarCatalogo(int cantidad) {
+        for (int id = 1; id <= cantidad; id++) {
+            Producto p = producto(id, CATEGORIAS[id % CATEGORIAS.length], 10.0 + (id * 37 % 500), id * 13 % 90);
+            p.setVersion(0L);
+            tabla.put(id, p);
+        }
+    }
+
+    // Aplica la escritura a la tabla y publica el evento, como hace ProductoService tras el commit
+    private void escribir(ProductoEvento evento) {
+        if (evento.getActual() != null) {
+            tabla.put(evento.getId(), evento.getActual().copiar());
+        } else {
+            tabla.remove(evento.getId());
+        }
+        agregados.aplicar(evento);
+    }
+
+    private ProductoEvento actualizacion(int id, Consumer<Producto> cambio) {
+        Producto anterior = tabla.get(id).copiar();
+        Producto actual = anterior.copiar();
+        cambio.accept(actual);
+        actual.setVersion(anterior.getVersion() + 1);
+        return ProductoEvento.actualizado(anterior, actual);
+    }
+
+    private static ProductoEvento alta(Producto p) {
+        p.setVersion(0L);
+        return ProductoEvento.creado(p);
+    }
+
+    private ProductoEvento baja(int id) {
+        return ProductoEvento.eliminado(tabla.get(id).copiar());
+    }
+
+    private Page<Producto> top(Pageable pagina) {
+        Sort.Order orden = pagina.getSort().iterator().next();
+        Comparator<Producto> porCampo = "precio".equals(orden.getProperty())
+                ? Comparator.comparing(Producto::getPrecio)
+                : Comparator.comparing(Producto::getStock);
+        List<Producto> ordenados = new ArrayList<>(tabla.values());
+        ordenados.sort(porCampo.reversed().thenComparing(Producto::getId));
+        return new PageImpl<>(ordenados.subList(0, Math.min(pagina.getPageSize(), ordenados.size())).stream()
+                .map(Producto::copiar).toList(), pagina, ordenados.size());
+    }
+
+    private static Producto producto(int id, String categoria, double precio, int stock) {
+        return new Producto(id, "P" + id, "Producto " + id, categoria, precio, stock, true);
+    }
+}
@@ -0,0 +1,144 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.UmbralCategoriaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AlertasStockTest {
+
+    @Mock
+    private ProductoRepository repository;
+
+    @Mock
+    private UmbralCategoriaRepository umbralesRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventos;
+
+    @Spy
+    private MeterRegistry registry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AlertasStock alertas;
+
+    @BeforeEach
+    void setUp() {
+        // Umbral 10: bajo por debajo de 10, crítico por debajo de 5
+        ReflectionTestUtils.setField(alertas, "umbralPorDefecto", 10);
+        when(umbralesRepository.findAll()).thenReturn(List.of());
+        when(repository.findEnRiesgo(10)).thenReturn(List.of());
+        alertas.reconstruir();
+    }
+
+    @Test
+    void publicaUnCrucePorCadaCambioDeNivel() {
+        Producto p20 = producto(1, 20, 1L);
+        Producto p8 = producto(1, 8, 2L);
+        Producto p3 = producto(1, 3, 3L);
+        Producto p12 = producto(1, 12, 4L);
+
+        alertas.aplicar(ProductoEvento.movimiento(p20, p8));
+        assertEquals(1, alertas.cantidadEnRiesgo());
+        assertEquals(0, alertas.cantidadCriticos());
+
+        alertas.aplicar(ProductoEvento.movimiento(p8, p3));
+        assertEquals(1, alertas.cantidadEnRiesgo());
+        assertEquals(1, alertas.cantidadCriticos());
+
+        alertas.aplicar(ProductoEvento.movimiento(p3, p12));
+        assertTrue(alertas.enRiesgo().isEmpty());
+        assertEquals(0, alertas.cantidadCriticos());
+
+        List<CruceUmbralEvento> cruces = cruces(3);
+        assertCruce(cruces.get(0), CruceUmbralEvento.Nivel.NORMAL, CruceUmbralEvento.Nivel.BAJO, true);
+        assertCruce(cruces.get(1), CruceUmbralEvento.Nivel.BAJO, CruceUmbralEvento.Nivel.CRITICO, true);
+        assertCruce(cruces.get(2), CruceUmbralEvento.Nivel.CRITICO, CruceUmbralEvento.Nivel.NORMAL, false);
+        assertEquals(3.0, registry.get("inventario.alertas.cruces").counters().stream()
+                .mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void unMovimientoDentroDelMismoNivelNoPublicaPeroReordena() {
+        alertas.aplicar(ProductoEvento.creado(producto(1, 8, 1L)));
+        alertas.aplicar(ProductoEvento.creado(producto(2, 9, 1L)));
+        alertas.aplicar(ProductoEvento.movimiento(producto(2, 9, 1L), producto(2, 6, 2L)));
+
+        cruces(2);
+        assertEquals(List.of(2, 1), alertas.enRiesgo().stream().map(Producto::getId).toList());
+    }
+
+    @Test
+    void descartaEventosConVersionYaVista() {
+        alertas.aplicar(ProductoEvento.movimiento(producto(1, 20, 1L), producto(1, 3, 3L)));
+        // Llega tarde un evento anterior (versión 2) que lo dejaba en nivel normal
+        alertas.aplicar(ProductoEvento.movimiento(producto(1, 20, 1L), producto(1, 15, 2L)));
+
+        assertEquals(1, alertas.cantidadCriticos());
+        assertEquals(3, alertas.criticos().get(0).getStock());
+        cruces(1);
+    }
+
+    @Test
+    void unaBajaQuitaElProductoSinAlertaYNoVuelveConEventosViejos() {
+        Producto critico = producto(1, 2, 1L);
+        alertas.aplicar(ProductoEvento.creado(critico));
+        alertas.aplicar(ProductoEvento.eliminado(critico));
+        alertas.aplicar(ProductoEvento.movimiento(producto(1, 2, 1L), producto(1, 1, 2L)));
+
+        assertTrue(alertas.enRiesgo().isEmpty());
+        cruces(1);
+    }
+
+    @Test
+    void noAplicaEventosAntesDeLaCargaInicial() {
+        AlertasStock sinCargar = new AlertasStock();
+        ReflectionTestUtils.setField(sinCargar, "eventos", eventos);
+        sinCargar.aplicar(ProductoEvento.creado(producto(1, 2, 1L)));
+
+        assertTrue(sinCargar.enRiesgo().isEmpty());
+        verify(eventos, never()).publishEvent(any(Object.class));
+    }
+
+    private List<CruceUmbralEvento> cruces(int cantidad) {
+        ArgumentCaptor<CruceUmbralEvento> captor = ArgumentCaptor.forClass(CruceUmbralEvento.class);
+        verify(eventos, times(cantidad)).publishEvent(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static void assertCruce(CruceUmbralEvento cruce, CruceUmbralEvento.Nivel anterior,
+                                    CruceUmbralEvento.Nivel actual, boolean empeora) {
+        assertEquals(anterior, cruce.getAnterior());
+        assertEquals(actual, cruce.getActual());
+        assertEquals(empeora, cruce.isEmpeora());
+        assertEquals(10, cruce.getUmbral());
+    }
+
+    private static Producto producto(int id, int stock, Long version) {
+        Producto p = new Producto(id, "P" + id, "Producto " + id, "General", 10.0, stock, true);
+        p.setVersion(version);
+        return p;
+    }
+}
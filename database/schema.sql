@@ -23,9 +23,116 @@ CREATE TABLE productos (
     precio DOUBLE NOT NULL,
     stock INT NOT NULL,
     activo BOOLEAN NOT NULL DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0,
+    actualizado_en DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    secuencia BIGINT NOT NULL DEFAULT 0,
+    umbral_reorden INT NULL,
     INDEX idx_codigo (codigo),
     INDEX idx_categoria (categoria),
-    INDEX idx_activo (activo)
+    INDEX idx_activo (activo),
+    INDEX idx_precio (precio),
+    INDEX idx_stock (stock),
+    INDEX idx_secuencia (secuencia)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- Tabla: umbrales_categoria (umbral de reorden de los productos sin uno propio)
+-- ============================================
+DROP TABLE IF EXISTS umbrales_categoria;
+
+CREATE TABLE umbrales_categoria (
+    categoria VARCHAR(50) PRIMARY KEY,
+    umbral INT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- Tablas: movimientos_stock, stock_instantaneas y movimientos_diarios (libro de movimientos)
+-- ============================================
+DROP TABLE IF EXISTS movimientos_stock;
+
+CREATE TABLE movimientos_stock (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id INT NOT NULL,
+    codigo VARCHAR(50) NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    tipo VARCHAR(10) NOT NULL,
+    cantidad INT NOT NULL,
+    usuario VARCHAR(50) NOT NULL,
+    fecha DATETIME(6) NOT NULL,
+    INDEX idx_mov_producto (producto_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+DROP TABLE IF EXISTS stock_instantaneas;
+
+CREATE TABLE stock_instantaneas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id INT NOT NULL,
+    stock INT NOT NULL,
+    hasta_movimiento BIGINT NOT NULL,
+    fecha DATETIME(6) NOT NULL,
+    apertura BOOLEAN NOT NULL,
+    INDEX idx_inst_producto (producto_id, hasta_movimiento)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+DROP TABLE IF EXISTS movimientos_diarios;
+
+CREATE TABLE movimientos_diarios (
+    dia DATE NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    tipo VARCHAR(10) NOT NULL,
+    movimientos BIGINT NOT NULL,
+    unidades BIGINT NOT NULL,
+    PRIMARY KEY (dia, categoria, tipo)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- Tabla: series_categoria (tendencias por categoría del dashboard)
+-- ============================================
+DROP TABLE IF EXISTS series_categoria;
+
+CREATE TABLE series_categoria (
+    granularidad VARCHAR(4) NOT NULL,
+    inicio DATETIME(6) NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    productos BIGINT NOT NULL,
+    stock BIGINT NOT NULL,
+    valor DOUBLE NOT NULL,
+    stock_bajo BIGINT NOT NULL,
+    muestras INT NOT NULL,
+    PRIMARY KEY (granularidad, inicio, categoria)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- Tabla: stock_punto_control (journal de stock write-behind)
+-- ============================================
+DROP TABLE IF EXISTS stock_punto_control;
+
+CREATE TABLE stock_punto_control (
+    id INT PRIMARY KEY,
+    segmento BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- Tablas: contador_cambios y producto_bajas (sincronización incremental)
+-- ============================================
+DROP TABLE IF EXISTS contador_cambios;
+
+CREATE TABLE contador_cambios (
+    id INT PRIMARY KEY,
+    valor BIGINT NOT NULL,
+    bajas_purgadas_hasta BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO contador_cambios (id, valor, bajas_purgadas_hasta) VALUES (1, 0, 0);
+
+DROP TABLE IF EXISTS producto_bajas;
+
+CREATE TABLE producto_bajas (
+    producto_id INT PRIMARY KEY,
+    codigo VARCHAR(50) NOT NULL,
+    secuencia BIGINT NOT NULL,
+    eliminado_en DATETIME(6) NOT NULL,
+    INDEX idx_baja_secuencia (secuencia)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- ============================================